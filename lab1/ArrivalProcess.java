@@ -0,0 +1,65 @@
+import java.util.SplittableRandom;
+import java.util.function.DoubleConsumer;
+
+// When visitors arrive, in simulated minutes. An ArrivalStream asks for the
+// arrivals of one time block at a time, with a random stream of its own.
+public interface ArrivalProcess {
+
+	// relative arrival rate per hour of a hotel day: quiet nights, a lunch
+	// peak and the evening check-in rush
+	double[] HOTEL_DAY = {
+		0.2, 0.1, 0.1, 0.1, 0.2, 0.4, 0.7, 1.0, 1.1, 1.0, 1.0, 1.3,
+		1.6, 1.4, 1.1, 1.2, 1.5, 1.8, 2.0, 1.9, 1.5, 1.0, 0.6, 0.4
+	};
+
+	// Emits every arrival time in [from, to), in any order.
+	void arrivals(double from, double to, SplittableRandom rand, DoubleConsumer out);
+
+	// Poisson arrivals: exponential gaps with the given mean.
+	static ArrivalProcess poisson(double meanGap) {
+		return (from, to, rand, out) -> {
+			for (double t = from + gap(meanGap, rand); t < to; t += gap(meanGap, rand)) {
+				out.accept(t);
+			}
+		};
+	}
+
+	// Poisson arrivals whose rate follows the time of day: in hour h the mean
+	// gap is meanGap / hourly[h]. Generated by thinning candidates drawn at
+	// the peak rate.
+	static ArrivalProcess timeOfDay(double meanGap, double[] hourly) {
+		double peak = 0;
+		for (double f : hourly) {
+			peak = Math.max(peak, f);
+		}
+		double peakFactor = peak;
+		double peakGap = meanGap / peak;
+		return (from, to, rand, out) -> {
+			for (double t = from + gap(peakGap, rand); t < to; t += gap(peakGap, rand)) {
+				int hour = (int) (t / 60.0) % hourly.length;
+				if (rand.nextDouble() * peakFactor < hourly[hour]) {
+					out.accept(t);
+				}
+			}
+		};
+	}
+
+	// The base arrivals plus tour buses. Buses come as a Poisson process and
+	// each one unloads busSize visitors over the next 'spread' minutes (less
+	// when the block ends sooner, so a block never emits past its end).
+	static ArrivalProcess withBuses(ArrivalProcess base, double meanBusGap, int busSize, double spread) {
+		return (from, to, rand, out) -> {
+			base.arrivals(from, to, rand, out);
+			for (double bus = from + gap(meanBusGap, rand); bus < to; bus += gap(meanBusGap, rand)) {
+				double unload = Math.min(spread, to - bus);
+				for (int i = 0; i < busSize; i++) {
+					out.accept(bus + rand.nextDouble() * unload);
+				}
+			}
+		};
+	}
+
+	private static double gap(double mean, SplittableRandom rand) {
+		return -mean * Math.log(1.0 - rand.nextDouble());
+	}
+}
@@ -0,0 +1,108 @@
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+// Lazy stream of arriving visitors over [0, horizon) simulated minutes.
+// Time is cut into blocks of BLOCK_MINUTES. Every block gets its own random
+// stream, derived from the seed and the block number, so a block produces the
+// same visitors whichever thread generates it and however the stream was
+// split. trySplit() hands off the second half of the blocks not started yet.
+// Only the arrival times of the current block are held, so memory use does
+// not depend on the horizon. Visitor ids still come from IdGenerator and may
+// differ between parallel runs.
+public class ArrivalStream implements Spliterator<Visitor> {
+
+	static final double BLOCK_MINUTES = 60.0;
+
+	private final ArrivalProcess process;
+	private final long seed;
+	private final double horizon;
+	private final int hungryOnly;
+	private final int tiredOnly;
+
+	private long block;
+	private long endBlock;
+	private SplittableRandom rand;
+	private double[] times = new double[64];
+	private int count = 0;
+	private int next = 0;
+
+	public ArrivalStream(ArrivalProcess process, long seed, double horizon) {
+		this(process, seed, horizon, Simulation.HUNGRY_ONLY_PERCENT, Simulation.TIRED_ONLY_PERCENT);
+	}
+
+	public ArrivalStream(ArrivalProcess process, long seed, double horizon, int hungryOnly, int tiredOnly) {
+		this(process, seed, horizon, hungryOnly, tiredOnly, 0, (long) Math.ceil(horizon / BLOCK_MINUTES));
+	}
+
+	private ArrivalStream(ArrivalProcess process, long seed, double horizon, int hungryOnly, int tiredOnly,
+			long block, long endBlock) {
+		this.process = process;
+		this.seed = seed;
+		this.horizon = horizon;
+		this.hungryOnly = hungryOnly;
+		this.tiredOnly = tiredOnly;
+		this.block = block;
+		this.endBlock = endBlock;
+	}
+
+	public static Stream<Visitor> visitors(ArrivalProcess process, long seed, double horizon, boolean parallel) {
+		return StreamSupport.stream(new ArrivalStream(process, seed, horizon), parallel);
+	}
+
+	@Override
+	public boolean tryAdvance(Consumer<? super Visitor> action) {
+		while (next == count) {
+			if (block >= endBlock) {
+				return false;
+			}
+			fill(block++);
+		}
+		Visitor v = Simulation.generateVisitor(rand, hungryOnly, tiredOnly);
+		v.arrivedAt = times[next++];
+		action.accept(v);
+		return true;
+	}
+
+	private void fill(long b) {
+		rand = RandomSource.stream(seed, b);
+		count = 0;
+		next = 0;
+		double from = b * BLOCK_MINUTES;
+		process.arrivals(from, Math.min(from + BLOCK_MINUTES, horizon), rand, this::add);
+		Arrays.sort(times, 0, count);
+	}
+
+	private void add(double t) {
+		if (count == times.length) {
+			times = Arrays.copyOf(times, count * 2);
+		}
+		times[count++] = t;
+	}
+
+	@Override
+	public Spliterator<Visitor> trySplit() {
+		long left = endBlock - block;
+		if (left < 2) {
+			return null;
+		}
+		long mid = block + left / 2;
+		ArrivalStream rest = new ArrivalStream(process, seed, horizon, hungryOnly, tiredOnly, mid, endBlock);
+		endBlock = mid;
+		return rest;
+	}
+
+	// blocks left, used only to balance splits; the visitor count is not known up front
+	@Override
+	public long estimateSize() {
+		return endBlock - block + (count - next);
+	}
+
+	@Override
+	public int characteristics() {
+		return ORDERED | NONNULL | IMMUTABLE;
+	}
+}
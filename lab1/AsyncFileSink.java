@@ -0,0 +1,139 @@
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+// Writes events to a file from a background thread. Callers only enqueue the
+// raw event; the writer drains the queue in batches, formats them and writes
+// each batch in one go. Callers block when the queue is full.
+public class AsyncFileSink implements EventSink {
+
+	static final int BATCH_SIZE = 4096;
+
+	private static final Object[] CLOSE = new Object[4];
+
+	private final BlockingQueue<Object[]> queue;
+	private final BufferedWriter out;
+	private final Thread writer;
+	private volatile IOException failure;
+
+	public AsyncFileSink(Path file, int capacity) throws IOException {
+		queue = new ArrayBlockingQueue<>(capacity);
+		out = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+		writer = new Thread(this::drain, "event-writer");
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	@Override
+	public void write(String template, Object a, Object b, Object c) {
+		enqueue(new Object[] {template, a, b, c});
+	}
+
+	// Waits until everything logged so far has been written.
+	@Override
+	public void flush() {
+		CountDownLatch written = new CountDownLatch(1);
+		enqueue(new Object[] {null, written, null, null});
+		try {
+			// a writer that died before reaching the request never counts it down
+			while (!written.await(10, TimeUnit.MILLISECONDS) && writer.isAlive()) {
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (failure != null) {
+			throw new UncheckedIOException(failure);
+		}
+	}
+
+	@Override
+	public void close() {
+		enqueue(CLOSE);
+		try {
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		if (failure != null) {
+			throw new UncheckedIOException(failure);
+		}
+	}
+
+	// Waits for room in the queue, but gives up with an exception once the
+	// writer has stopped, since nothing would ever take the event.
+	private void enqueue(Object[] event) {
+		checkWriter();
+		try {
+			while (!queue.offer(event, 10, TimeUnit.MILLISECONDS)) {
+				checkWriter();
+				if (!writer.isAlive()) {
+					throw new IllegalStateException("The event writer has stopped");
+				}
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private void checkWriter() {
+		if (failure != null) {
+			throw new UncheckedIOException(failure);
+		}
+	}
+
+	private static void release(List<Object[]> events) {
+		for (Object[] e : events) {
+			if (e[0] == null && e[1] != null) {
+				((CountDownLatch) e[1]).countDown();
+			}
+		}
+	}
+
+	private void drain() {
+		List<Object[]> batch = new ArrayList<>(BATCH_SIZE);
+		StringBuilder sb = new StringBuilder(256);
+		try {
+			while (true) {
+				batch.add(queue.take());
+				queue.drainTo(batch, BATCH_SIZE - 1);
+				boolean closing = false;
+				for (Object[] e : batch) {
+					if (e == CLOSE) {
+						closing = true;
+					} else if (e[0] != null) {
+						sb.setLength(0);
+						EventLog.format(sb, (String) e[0], e[1], e[2], e[3]);
+						out.append(sb).append(System.lineSeparator());
+					}
+				}
+				out.flush();
+				// flush() requests are released once their batch is on disk
+				release(batch);
+				batch.clear();
+				if (closing) {
+					out.close();
+					return;
+				}
+			}
+		} catch (IOException e) {
+			failure = e;
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			// nothing more gets written; let every waiting flush() see that
+			release(batch);
+			batch.clear();
+			queue.drainTo(batch);
+			release(batch);
+		}
+	}
+}
@@ -1,36 +1,54 @@
-import java.util.Random;
+import java.util.random.RandomGenerator;
 
 public class Baggage {
 
 	
-	private String[] type = {"suitcase", "bag", "backpack"};
+	private static final String[] type = {"suitcase", "bag", "backpack"};
 	private String bType;
 
-	private void BagType() {
-				
-		Random r = new Random();
-		int t = r.nextInt(type.length);
-		bType = type[t];
+	public Baggage() {
+		this(RandomSource.current());
+	}
+
+	// draws the bag type from the given generator
+	Baggage(RandomGenerator rand) {
+		bType = type[rand.nextInt(type.length)];
+	}
+
+	// restores a bag of a known type without drawing a random one
+	Baggage(String bType) {
+		this.bType = bType;
 	}
 
 	public String getbType() {
 		return bType;
 	}
 
-	static boolean marked = false;
-	static boolean serviced = false;
+	// every bag keeps its own state, so many visitors can be in flight at once
+	private volatile boolean marked = false;
+	private volatile boolean serviced = false;
+	Room destination;
+	long droppedAt;
 	
-	public static void markIt() {
+	public void markIt() {
 		marked = true;
 	}
 	
-	public static void unmarkIt() {
+	public void unmarkIt() {
 		marked = false;
 	}
 
-	public static void service() {
+	public boolean isMarked() {
+		return marked;
+	}
+
+	public void service() {
 		serviced = true;
 	}
+
+	public boolean isServiced() {
+		return serviced;
+	}
 	
 
 }
@@ -7,8 +7,13 @@ public class BaggagePorterSt extends HotelStaff {
 	}
 	
 	public void moveBaggage(Room r, Baggage b) {
+		long start = StageLatency.start();
 		r.baggage = b;
-		System.out.println("The baggage was moved to a room by "+name);
+		if (b != null) {
+			b.service();
+		}
+		EventLog.log("The baggage was moved to a room by {}", name);
+		StageLatency.record(StageLatency.Stage.MOVE_BAGGAGE, start);
 	}
 
 
@@ -0,0 +1,133 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Pool of porters moving dropped-off bags to their rooms. Every porter has
+// its own drop-off lane; reception puts a bag on a random lane, and a porter
+// takes up to batchSize bags from its lane per trip, falling back to other
+// lanes when its own is empty. Each porter keeps its own counters and
+// latency histogram, so nothing is shared on the delivery path.
+public class BaggageService {
+
+	private final class Porter extends Thread {
+
+		final BaggagePorterSt staff;
+		final int lane;
+		final Baggage[] batch;
+		final LatencyHistogram latency = new LatencyHistogram();
+		long delivered;
+		long trips;
+
+		Porter(BaggagePorterSt staff, int lane) {
+			super("porter-" + lane);
+			this.staff = staff;
+			this.lane = lane;
+			this.batch = new Baggage[batchSize];
+		}
+
+		@Override
+		public void run() {
+			int idle = 0;
+			while (true) {
+				int n = collect(lane, batch);
+				for (int l = 1; n == 0 && l < lanes.size(); l++) {
+					n = collect((lane + l) % lanes.size(), batch);
+				}
+				if (n == 0) {
+					if (closed && pending.sum() == 0) {
+						return;
+					}
+					// back off while there is nothing to carry
+					idle = Math.min(idle + 1, 20);
+					LockSupport.parkNanos(1L << idle);
+					continue;
+				}
+				idle = 0;
+				trips++;
+				for (int i = 0; i < n; i++) {
+					Baggage b = batch[i];
+					batch[i] = null;
+					staff.moveBaggage(b.destination, b);
+					b.unmarkIt();
+					latency.record(System.nanoTime() - b.droppedAt);
+				}
+				delivered += n;
+				pending.add(-n);
+			}
+		}
+	}
+
+	private final int batchSize;
+	private final List<ConcurrentLinkedQueue<Baggage>> lanes;
+	private final Porter[] porters;
+	private final LongAdder pending = new LongAdder();
+	private volatile boolean closed = false;
+	private long startedAt;
+
+	public BaggageService(int porterCount, int batchSize) {
+		this.batchSize = batchSize;
+		lanes = new ArrayList<>(porterCount);
+		porters = new Porter[porterCount];
+		for (int i = 0; i < porterCount; i++) {
+			lanes.add(new ConcurrentLinkedQueue<>());
+			porters[i] = new Porter(new BaggagePorterSt("Daniil-" + i), i);
+		}
+	}
+
+	public void start() {
+		startedAt = System.nanoTime();
+		for (Porter p : porters) {
+			p.start();
+		}
+	}
+
+	// Reception hands over a bag that has to go to room r.
+	public void dropOff(Baggage b, Room r) {
+		b.destination = r;
+		b.markIt();
+		b.droppedAt = System.nanoTime();
+		pending.increment();
+		lanes.get(ThreadLocalRandom.current().nextInt(lanes.size())).offer(b);
+	}
+
+	private int collect(int lane, Baggage[] into) {
+		ConcurrentLinkedQueue<Baggage> q = lanes.get(lane);
+		int n = 0;
+		Baggage b;
+		while (n < into.length && (b = q.poll()) != null) {
+			into[n++] = b;
+		}
+		return n;
+	}
+
+	// Call once all bags have been dropped off: waits until every one is
+	// delivered and stops the porters.
+	public void shutdown() throws InterruptedException {
+		closed = true;
+		for (Porter p : porters) {
+			p.join();
+		}
+	}
+
+	public void printReport() {
+		long elapsed = System.nanoTime() - startedAt;
+		LatencyHistogram total = new LatencyHistogram();
+		long delivered = 0;
+		long trips = 0;
+		for (Porter p : porters) {
+			total.merge(p.latency);
+			delivered += p.delivered;
+			trips += p.trips;
+		}
+		System.out.printf("Baggage: %d porters delivered %d bags in %d ms (%.0f bags/s), %.1f bags per trip%n",
+				porters.length, delivered, TimeUnit.NANOSECONDS.toMillis(elapsed), delivered * 1e9 / elapsed,
+				trips == 0 ? 0.0 : (double) delivered / trips);
+		System.out.printf("  drop-off to room: mean %.1f us, p50 %d us, p99 %d us, p999 %d us, max %d us%n",
+				total.getMean() / 1000, total.valueAt(50) / 1000, total.valueAt(99) / 1000,
+				total.valueAt(99.9) / 1000, total.getMax() / 1000);
+	}
+}
@@ -1,5 +1,3 @@
-import java.util.Random;
-
 public class Barman extends RestStaff{
 
     public Barman(String name) {
@@ -11,10 +9,11 @@ public class Barman extends RestStaff{
 
 
     public void servDrink(Visitor v) {
+		long start = StageLatency.start();
 				
-		Random r = new Random();
-		int d = r.nextInt(drink.length);
+		int d = RandomSource.current().nextInt(drink.length);
 		
-		System.out.println(v.getType()+" visitor was served by "+name+" with " + drink[d]);
+		EventLog.log("{} visitor was served by {} with {}", v.getType(), name, drink[d]);
+		StageLatency.record(StageLatency.Stage.SERVE_DRINK, start);
 	}
 }
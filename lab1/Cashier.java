@@ -4,14 +4,39 @@ public class Cashier extends RestStaff{
         super(name);
     }
 
+    // what payment() charges for a meal, in cents
+    static final long MEAL_PRICE_CENTS = 2500;
+
     private boolean payment = false;
+
+    // where payments are recorded; null means they are only logged
+    private PaymentLedger ledger;
     
     public boolean getPaymentState(){
         return this.payment;
       }
 
+    public void setLedger(PaymentLedger ledger){
+        this.ledger = ledger;
+    }
+
     public void payment() {
+		long start = StageLatency.start();
+		this.payment = true;
+		StateLog.record(StateLog.PAYMENT, null, 0, MEAL_PRICE_CENTS);
+		EventLog.log("The visitor paid for the meal");
+		StageLatency.record(StageLatency.Stage.PAYMENT, start);
+	}
+
+    public void payment(Visitor v, double amount) {
+		long start = StageLatency.start();
 		this.payment = true;
-		System.out.println("The visitor paid for the meal");
+		v.paymentState = true;
+		StateLog.record(StateLog.PAYMENT, v, 0, Math.round(amount * 100));
+		if (ledger != null) {
+			ledger.append(v.getId().getId(), amount, PaymentLedger.CASH);
+		}
+		EventLog.log("The visitor with id {} paid {} for the meal", v.getId(), amount);
+		StageLatency.record(StageLatency.Stage.PAYMENT, start);
 	}
 }
@@ -1,4 +1,4 @@
-import java.util.Random;
+import java.util.List;
 
 public class Chev extends RestStaff{
 
@@ -12,11 +12,29 @@ public class Chev extends RestStaff{
         return this.newNation;
       }
 
+    // Moves the next batch from the tickets into 'batch': the oldest ticket,
+    // plus later tickets of the same cuisine while the batch stays within
+    // maxPortions. With maxPortions 0 every order is cooked on its own.
+    public void nextBatch(List<Party> tickets, int maxPortions, List<Party> batch) {
+        Party first = tickets.remove(0);
+        batch.add(first);
+        int portions = first.size;
+        for (int i = 0; i < tickets.size() && portions < maxPortions; ) {
+            Party p = tickets.get(i);
+            if (p.cuisine == first.cuisine && portions + p.size <= maxPortions) {
+                batch.add(tickets.remove(i));
+                portions += p.size;
+            } else {
+                i++;
+            }
+        }
+        EventLog.log("The next {} orders are from {} cuisine", batch.size(), newNation[first.cuisine]);
+    }
+
     public void setNation() {
 
-        Random r = new Random();
-        int n = r.nextInt(newNation.length);
-		System.out.println("The main food is from " + newNation[n] + " cuisine");
+        int n = RandomSource.current().nextInt(newNation.length);
+		EventLog.log("The main food is from {} cuisine", newNation[n]);
 
     }
 
@@ -16,8 +16,10 @@ public class CleanerStaff extends HotelStaff {
     }
 
     public void setCleaned(boolean cleaned) {
+        long start = StageLatency.start();
         this.cleaned = cleaned;
-        System.out.println("The room is cleaned by "+ type);
+        EventLog.log("The room is cleaned by {}", type);
+        StageLatency.record(StageLatency.Stage.CLEAN_ROOM, start);
     }
 
 }
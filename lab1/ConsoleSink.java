@@ -0,0 +1,9 @@
+
+// Prints every event on standard output, like the simulation always did.
+public class ConsoleSink implements EventSink {
+
+	@Override
+	public void write(String template, Object a, Object b, Object c) {
+		System.out.println(EventLog.format(template, a, b, c));
+	}
+}
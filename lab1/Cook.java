@@ -1,19 +1,22 @@
-import java.util.Random;
-
 public class Cook extends RestStaff{
 
     public Cook(String name) {
         super(name);
     }
 
-	private String[] food = {"Steak", "Mamaliga", "Soup", "Pizza", "Borsch", "Ice cream"};
+	static final String[] food = {"Steak", "Mamaliga", "Soup", "Pizza", "Borsch", "Ice cream"};
 
 
     public void servFood(Visitor v) {
+		servFood(v, RandomSource.current().nextInt(food.length));
+	}
+
+    public void servFood(Visitor v, int f) {
+		long start = StageLatency.start();
+
+		StateLog.record(StateLog.FOOD_SERVED, v, f, 0);
 		
-		Random r = new Random();
-		int f = r.nextInt(food.length);
-		
-		System.out.println(v.getType()+" visitor was served by "+name+" with " + food[f]);
+		EventLog.log("{} visitor was served by {} with {}", v.getType(), name, food[f]);
+		StageLatency.record(StageLatency.Stage.SERVE_FOOD, start);
 	}
 }
\ No newline at end of file
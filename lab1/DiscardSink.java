@@ -0,0 +1,13 @@
+
+// Drops every event; used for benchmarks and large runs.
+public class DiscardSink implements EventSink {
+
+	@Override
+	public void write(String template, Object a, Object b, Object c) {
+	}
+
+	@Override
+	public boolean isEnabled() {
+		return false;
+	}
+}
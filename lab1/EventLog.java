@@ -0,0 +1,79 @@
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Paths;
+
+// Entry point for everything the simulation reports about staff actions.
+// Messages are templates with "{}" placeholders; they are handed to the
+// current EventSink as-is and only formatted if the sink writes them.
+public class EventLog {
+
+	private static volatile EventSink sink = new ConsoleSink();
+
+	public static EventSink getSink() {
+		return sink;
+	}
+
+	public static void setSink(EventSink newSink) {
+		sink = newSink;
+	}
+
+	// "console", "discard", "memory" or "file:<path>"
+	public static EventSink fromSpec(String spec) {
+		if (spec.equals("discard")) {
+			return new DiscardSink();
+		}
+		if (spec.equals("memory")) {
+			return new MemorySink();
+		}
+		if (spec.startsWith("file:")) {
+			try {
+				return new AsyncFileSink(Paths.get(spec.substring(5)), 65536);
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			}
+		}
+		return new ConsoleSink();
+	}
+
+	public static boolean isEnabled() {
+		return sink.isEnabled();
+	}
+
+	public static void log(String message) {
+		sink.write(message, null, null, null);
+	}
+
+	public static void log(String template, Object a) {
+		sink.write(template, a, null, null);
+	}
+
+	public static void log(String template, Object a, Object b) {
+		sink.write(template, a, b, null);
+	}
+
+	public static void log(String template, Object a, Object b, Object c) {
+		sink.write(template, a, b, c);
+	}
+
+	public static String format(String template, Object a, Object b, Object c) {
+		if (template.indexOf('{') < 0) {
+			return template;
+		}
+		StringBuilder sb = new StringBuilder(template.length() + 32);
+		format(sb, template, a, b, c);
+		return sb.toString();
+	}
+
+	public static void format(StringBuilder sb, String template, Object a, Object b, Object c) {
+		int arg = 0;
+		int from = 0;
+		int at;
+		while ((at = template.indexOf("{}", from)) >= 0 && arg < 3) {
+			sb.append(template, from, at);
+			sb.append(arg == 0 ? a : arg == 1 ? b : c);
+			arg++;
+			from = at + 2;
+		}
+		sb.append(template, from, template.length());
+	}
+}
@@ -0,0 +1,389 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.SplittableRandom;
+
+// Discrete-event version of Simulation: a virtual clock (in minutes) jumps
+// from one timestamped event to the next instead of sleeping between visitors.
+public class EventSimulation {
+
+	static final double CHECK_IN_TIME = 5.0;
+	static final double MEAL_TIME = 45.0;
+	static final double STAY_TIME = 12 * 60.0;
+	static final int[] DEFAULT_TABLES = {
+		2, 2, 2, 2, 2, 2, 2, 2, 4, 4, 4, 4, 4, 4, 4, 4, 4, 4, 4, 4, 6, 6, 6, 6, 6, 6, 8, 8, 8, 8
+	};
+
+	private final PriorityQueue<SimEvent> events = new PriorityQueue<>();
+	private SplittableRandom rand;
+	private double meanArrivalGap;
+
+	private double clock = 0.0;
+	long sequence = 0;
+
+	private long processed = 0;
+	private long arrivals = 0;
+	long checkIns = 0;
+	long meals = 0;
+	long payments = 0;
+	long turnedAway = 0;
+	// integral of rooms in use over time, for the mean occupancy
+	double roomMinutes = 0;
+
+	private int hungryOnly = Simulation.HUNGRY_ONLY_PERCENT;
+	private int tiredOnly = Simulation.TIRED_ONLY_PERCENT;
+
+	// set when forked from a snapshot: its pending events are read in place,
+	// and its visitors are restored into baseVisitors when first needed
+	private SimSnapshot base;
+	private int baseNext = 0;
+	private SimEvent baseEvent;
+	private Visitor[] baseVisitors;
+
+	private Hotel hotel;
+	private BaggagePorterSt bg = new BaggagePorterSt("Daniil");
+	private ReceptionStaff rs = new ReceptionStaff("Steve");
+	private CleanerStaff cs = new CleanerStaff("John");
+	private Restaurant restaurant;
+	private final List<Party> seated = new ArrayList<>();
+	// null means every diner is served straight away, as before
+	private Kitchen kitchen;
+	private final List<Party> cooking = new ArrayList<>();
+	// null means rooms are ready again as soon as the guest leaves
+	private Housekeeping housekeeping;
+	private Chev chev = new Chev("Boris");
+	private Cook cook = new Cook("Abdul");
+	private Barman barman = new Barman("Yurii");
+	private Cashier cashier = new Cashier("Lena");
+
+	public EventSimulation(long seed, double meanArrivalGap, int roomCount) {
+		this(seed, meanArrivalGap, roomCount, DEFAULT_TABLES, 6);
+	}
+
+	public EventSimulation(long seed, double meanArrivalGap, int roomCount, int[] tableSeats, int waiterCount) {
+		// every stream comes from 'seed' and the shared root seed is not touched,
+		// so sweeps can build simulations on many threads at once
+		this.rand = RandomSource.stream(seed, 0);
+		this.meanArrivalGap = meanArrivalGap;
+		this.hotel = new Hotel(roomCount);
+		this.restaurant = new Restaurant(tableSeats, waiterCount);
+	}
+
+	// Continues from a snapshot; see SimSnapshot.fork().
+	EventSimulation(SimSnapshot s) {
+		this.rand = new SplittableRandom(s.seed);
+		this.meanArrivalGap = s.meanArrivalGap;
+		this.hotel = new Hotel(new RoomInventory(s.roomCount, s.freeRooms));
+		this.restaurant = s.restaurant.copy();
+		this.kitchen = s.kitchen == null ? null : s.kitchen.copy();
+		this.housekeeping = s.housekeeping == null ? null : s.housekeeping.copy();
+		this.clock = s.clock;
+		this.sequence = s.sequence;
+		this.processed = s.processed;
+		this.arrivals = s.arrivals;
+		this.checkIns = s.checkIns;
+		this.meals = s.meals;
+		this.payments = s.payments;
+		this.turnedAway = s.turnedAway;
+		this.roomMinutes = s.roomMinutes;
+		this.hungryOnly = s.hungryOnly;
+		this.tiredOnly = s.tiredOnly;
+		this.base = s;
+		this.baseVisitors = new Visitor[s.visitorCount()];
+		for (int row : s.waiting) {
+			restaurant.getWaiting().add(baseVisitor(row).party);
+		}
+		for (int row : s.tickets) {
+			kitchen.getTickets().add(baseVisitor(row).party);
+		}
+		for (int i = 0; i < s.blocked.length; i++) {
+			housekeeping.restoreBlocked(baseVisitor(s.blocked[i]), s.blockedSince[i]);
+		}
+	}
+
+	// Freezes the current state so that what-if branches can be forked from it.
+	// The simulation is reseeded from the snapshot, so carrying on with it
+	// gives the same run as an unchanged fork.
+	public SimSnapshot snapshot() {
+		long seed = rand.nextLong();
+		rand = new SplittableRandom(seed);
+		List<SimEvent> pending = new ArrayList<>(events);
+		if (base != null) {
+			for (int i = baseNext; i < base.eventCount(); i++) {
+				pending.add(base.event(i, baseVisitor(base.eventVisitor(i))));
+			}
+		}
+		Collections.sort(pending);
+		return new SimSnapshot(this, seed, pending);
+	}
+
+	public double getMeanArrivalGap() {
+		return meanArrivalGap;
+	}
+
+	// takes effect from the next arrival on
+	public void setMeanArrivalGap(double meanArrivalGap) {
+		this.meanArrivalGap = meanArrivalGap;
+	}
+
+	// percentages of visitors who only eat and who only stay; the rest do both
+	public void setVisitorMix(int hungryOnly, int tiredOnly) {
+		this.hungryOnly = hungryOnly;
+		this.tiredOnly = tiredOnly;
+	}
+
+	public int getHungryOnly() {
+		return hungryOnly;
+	}
+
+	public int getTiredOnly() {
+		return tiredOnly;
+	}
+
+	public long getCheckIns() {
+		return checkIns;
+	}
+
+	public long getPayments() {
+		return payments;
+	}
+
+	public long getTurnedAway() {
+		return turnedAway;
+	}
+
+	// share of the rooms in use, averaged over the simulated time
+	public double getMeanOccupancy() {
+		return clock == 0 ? 0.0 : roomMinutes / clock / hotel.getRooms().size();
+	}
+
+	// Diners seated from now on order through the kitchen.
+	public void setKitchen(Kitchen kitchen) {
+		this.kitchen = kitchen;
+	}
+
+	public Kitchen getKitchen() {
+		return kitchen;
+	}
+
+	// Rooms given back from now on wait for a cleaner before they can be sold again.
+	public void setHousekeeping(Housekeeping housekeeping) {
+		this.housekeeping = housekeeping;
+	}
+
+	public Housekeeping getHousekeeping() {
+		return housekeeping;
+	}
+
+	public Restaurant getRestaurant() {
+		return restaurant;
+	}
+
+	public Hotel getHotel() {
+		return hotel;
+	}
+
+	public double getClock() {
+		return clock;
+	}
+
+	public long getProcessed() {
+		return processed;
+	}
+
+	public long getArrivals() {
+		return arrivals;
+	}
+
+	public void schedule(double delay, SimEvent.Type type, Visitor v) {
+		events.add(new SimEvent(clock + delay, sequence++, type, v));
+	}
+
+	// Runs until the virtual clock passes horizon or maxEvents have been handled.
+	public void run(double horizon, long maxEvents) {
+		// staff draw from the thread's stream, so bind ours to keep runs reproducible
+		RandomSource.bind(rand);
+		hotel.open();
+		if (peekEvent() == null) {
+			schedule(0.0, SimEvent.Type.ARRIVAL, null);
+		}
+
+		while (processed < maxEvents) {
+			SimEvent e = peekEvent();
+			if (e == null || e.time > horizon) {
+				break;
+			}
+			if (e == baseEvent) {
+				baseEvent = null;
+				baseNext++;
+			} else {
+				events.poll();
+			}
+			RoomInventory rooms = hotel.getRooms();
+			roomMinutes += (rooms.size() - rooms.available()) * (e.time - clock);
+			clock = e.time;
+			processed++;
+			handle(e);
+		}
+		hotel.close();
+	}
+
+	// The earlier of the next snapshot event and the head of our own queue.
+	private SimEvent peekEvent() {
+		if (baseEvent == null && base != null && baseNext < base.eventCount()) {
+			baseEvent = base.event(baseNext, baseVisitor(base.eventVisitor(baseNext)));
+		}
+		SimEvent own = events.peek();
+		if (baseEvent != null && (own == null || baseEvent.compareTo(own) < 0)) {
+			return baseEvent;
+		}
+		return own;
+	}
+
+	private Visitor baseVisitor(int row) {
+		if (row < 0) {
+			return null;
+		}
+		Visitor v = baseVisitors[row];
+		if (v == null) {
+			v = base.restore(row, hotel.getRooms(), restaurant, kitchen);
+			baseVisitors[row] = v;
+		}
+		return v;
+	}
+
+	private void handle(SimEvent e) {
+		Visitor v = e.visitor;
+		switch (e.type) {
+			case ARRIVAL:
+				arrivals++;
+				v = Simulation.generateVisitor(rand, hungryOnly, tiredOnly);
+				if (v.getTiredState()) {
+					schedule(0.0, SimEvent.Type.CHECK_IN, v);
+				} else {
+					schedule(0.0, SimEvent.Type.MEAL, v);
+				}
+				schedule(nextArrivalGap(), SimEvent.Type.ARRIVAL, null);
+				break;
+			case CHECK_IN:
+				if (rs.assignRoom(hotel, v) != null) {
+					checkedIn(v);
+				} else if (housekeeping != null && housekeeping.hasTurnovers()) {
+					housekeeping.block(v, clock, this);
+				} else {
+					turnedAway++;
+				}
+				break;
+			case MEAL:
+				// visitors often bring company, so a party is 1-4 diners
+				v.party = new Party(v, 1 + rand.nextInt(4), clock);
+				restaurant.arrive(v.party, clock, seated);
+				startMeals();
+				break;
+			case PAYMENT:
+				// done eating; the party pays once its waiter gets to the bill
+				schedule(restaurant.askForBill(v.party, clock) - clock, SimEvent.Type.BILL_SETTLED, v);
+				break;
+			case BILL_SETTLED:
+				payments++;
+				cashier.payment();
+				v.party.getWaiter().service();
+				restaurant.leave(v.party, clock, seated);
+				v.party = null;
+				startMeals();
+				break;
+			case CHECK_OUT:
+				if (housekeeping == null) {
+					rs.checkOut(hotel, v);
+				} else {
+					housekeeping.vacated(rs.vacate(v), clock);
+					housekeeping.dispatch(clock, this);
+				}
+				break;
+			case CLEANING_DONE:
+				housekeeping.finish(clock, hotel.getRooms());
+				Visitor waiting;
+				while (!hotel.getRooms().isFullyBooked() && (waiting = housekeeping.unblock(clock)) != null) {
+					rs.assignRoom(hotel, waiting);
+					checkedIn(waiting);
+				}
+				housekeeping.dispatch(clock, this);
+				break;
+			case CHECK_IN_TIMEOUT:
+				housekeeping.expire(clock);
+				break;
+			case ORDER_READY:
+				kitchen.serve(v.party, clock);
+				schedule(MEAL_TIME, SimEvent.Type.PAYMENT, v);
+				startCooking();
+				break;
+		}
+	}
+
+	private void checkedIn(Visitor v) {
+		checkIns++;
+		if (housekeeping == null) {
+			cs.setCleaned(true);
+		} else {
+			housekeeping.stayover(v.room, clock);
+			housekeeping.dispatch(clock, this);
+		}
+		bg.moveBaggage(v.room, v.b);
+		if (v.getHungryState()) {
+			schedule(CHECK_IN_TIME, SimEvent.Type.MEAL, v);
+		}
+		schedule(STAY_TIME, SimEvent.Type.CHECK_OUT, v);
+	}
+
+	private void startMeals() {
+		if (kitchen != null) {
+			for (Party p : seated) {
+				meals++;
+				p.cuisine = rand.nextInt(chev.getNationState().length);
+				p.dish = rand.nextInt(Cook.food.length);
+				kitchen.order(p, clock);
+				barman.servDrink(p.visitor);
+			}
+			seated.clear();
+			startCooking();
+			return;
+		}
+		for (Party p : seated) {
+			meals++;
+			chev.setNation();
+			cook.servFood(p.visitor);
+			barman.servDrink(p.visitor);
+			schedule(MEAL_TIME, SimEvent.Type.PAYMENT, p.visitor);
+		}
+		seated.clear();
+	}
+
+	private void startCooking() {
+		kitchen.dispatch(clock, cooking);
+		for (Party p : cooking) {
+			schedule(p.readyAt - clock, SimEvent.Type.ORDER_READY, p.visitor);
+		}
+		cooking.clear();
+	}
+
+	// exponential gaps give a Poisson arrival process
+	private double nextArrivalGap() {
+		return -meanArrivalGap * Math.log(1.0 - rand.nextDouble());
+	}
+
+	public void printSummary() {
+		System.out.println("Simulated " + clock + " minutes, " + processed + " events");
+		System.out.println("Arrivals: " + arrivals + ", check-ins: " + checkIns
+				+ ", meals: " + meals + ", payments: " + payments);
+		System.out.println("Turned away (fully booked): " + turnedAway + ", rooms in use at the end: "
+				+ (hotel.getRooms().size() - hotel.getRooms().available()) + "/" + hotel.getRooms().size());
+		restaurant.printReport(clock);
+		if (kitchen != null) {
+			kitchen.printReport(clock);
+		}
+		if (housekeeping != null) {
+			housekeeping.printReport(clock);
+		}
+	}
+}
@@ -0,0 +1,18 @@
+
+// Destination for simulation events. An event is a message template with
+// "{}" placeholders plus up to three arguments; sinks only build the final
+// string (see EventLog.format) when the event is actually written.
+public interface EventSink {
+
+	void write(String template, Object a, Object b, Object c);
+
+	default boolean isEnabled() {
+		return true;
+	}
+
+	default void flush() {
+	}
+
+	default void close() {
+	}
+}
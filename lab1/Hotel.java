@@ -2,6 +2,23 @@
 public class Hotel implements WorkingStateHotel {
 
     private boolean opened;
+    private RoomInventory rooms;
+
+    public Hotel() {
+        this(100);
+    }
+
+    public Hotel(int roomCount) {
+        this(new RoomInventory(roomCount));
+    }
+
+    Hotel(RoomInventory rooms) {
+        this.rooms = rooms;
+    }
+
+    public RoomInventory getRooms() {
+        return this.rooms;
+    }
 
     public boolean getHotelState() {
         return this.opened;
@@ -10,13 +27,13 @@ public class Hotel implements WorkingStateHotel {
     @Override
     public void open() {
         this.opened = true;
-        System.out.println("The hotel is opened");    
+        EventLog.log("The hotel is opened");    
     }
 
     @Override
     public void close() {
         this.opened = false;
-        System.out.println("The hotel is closed");    
+        EventLog.log("The hotel is closed");    
     }
     /*String name = "Dolphin";
 	String city = "New-York";
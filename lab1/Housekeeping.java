@@ -0,0 +1,249 @@
+import java.util.Comparator;
+import java.util.PriorityQueue;
+
+// Housekeeping for EventSimulation. A room that a visitor leaves stays taken
+// until a cleaner has turned it over; only then does it go back to the
+// RoomInventory. Rooms of new guests also get a shorter stayover service.
+// Jobs wait in one queue and every free cleaner takes the next one.
+//
+// With FIFO jobs are done in the order they came in. With PRIORITY every
+// turnover goes before any stayover service, because a turned-over room is
+// what an arriving guest needs. A visitor who arrives while every room is
+// taken, but some are waiting to be cleaned, waits at reception for the next
+// clean room instead of being turned away; after MAX_CHECK_IN_WAIT they give
+// up and leave, which a CHECK_IN_TIMEOUT event notices on time.
+public class Housekeeping {
+
+	public enum Policy {
+		FIFO, PRIORITY
+	}
+
+	static final double TURNOVER_TIME = 30.0;
+	static final double STAYOVER_TIME = 20.0;
+	static final double MAX_CHECK_IN_WAIT = 60.0;
+
+	// one room to clean; jobs never change, so copies of the queue share them
+	static final class Job {
+		final int room;
+		final boolean turnover;
+		final double queuedAt;
+		final long sequence;
+
+		Job(int room, boolean turnover, double queuedAt, long sequence) {
+			this.room = room;
+			this.turnover = turnover;
+			this.queuedAt = queuedAt;
+			this.sequence = sequence;
+		}
+	}
+
+	private final Policy policy;
+	private final CleanerStaff[] cleaners;
+	private final Job[] current;
+	private final double[] freeAt;
+	private final double[] busyMinutes;
+	private final PriorityQueue<Job> jobs;
+	private long sequence = 0;
+	private int turnoversLeft = 0;
+
+	// visitors waiting at reception for a clean room, and since when, in a
+	// ring buffer: oldest at blockedHead, blockedCount of them
+	private Visitor[] blocked = new Visitor[16];
+	private double[] blockedSince = new double[16];
+	private int blockedHead = 0;
+	private int blockedCount = 0;
+
+	private long turnovers = 0;
+	private long stayovers = 0;
+	private long blockedCheckIns = 0;
+	private long gaveUp = 0;
+	private final LatencyHistogram turnaroundSeconds = new LatencyHistogram();
+	private final LatencyHistogram blockedSeconds = new LatencyHistogram();
+
+	public Housekeeping(Policy policy, int cleanerCount) {
+		this.policy = policy;
+		cleaners = new CleanerStaff[cleanerCount];
+		for (int i = 0; i < cleanerCount; i++) {
+			cleaners[i] = new CleanerStaff("John-" + i);
+		}
+		current = new Job[cleanerCount];
+		freeAt = new double[cleanerCount];
+		busyMinutes = new double[cleanerCount];
+		Comparator<Job> inOrder = Comparator.comparingLong(j -> j.sequence);
+		jobs = new PriorityQueue<>(policy == Policy.PRIORITY
+				? Comparator.<Job, Boolean>comparing(j -> !j.turnover).thenComparing(inOrder)
+				: inOrder);
+	}
+
+	// Same cleaners, jobs and statistics, without the blocked visitors; see SimSnapshot.
+	Housekeeping copy() {
+		Housekeeping h = new Housekeeping(policy, cleaners.length);
+		System.arraycopy(current, 0, h.current, 0, current.length);
+		System.arraycopy(freeAt, 0, h.freeAt, 0, freeAt.length);
+		System.arraycopy(busyMinutes, 0, h.busyMinutes, 0, busyMinutes.length);
+		h.jobs.addAll(jobs);
+		h.sequence = sequence;
+		h.turnoversLeft = turnoversLeft;
+		h.turnovers = turnovers;
+		h.stayovers = stayovers;
+		h.blockedCheckIns = blockedCheckIns;
+		h.gaveUp = gaveUp;
+		h.turnaroundSeconds.merge(turnaroundSeconds);
+		h.blockedSeconds.merge(blockedSeconds);
+		return h;
+	}
+
+	public Policy getPolicy() {
+		return policy;
+	}
+
+	int getBlockedCount() {
+		return blockedCount;
+	}
+
+	// i-th waiting visitor, oldest first
+	Visitor getBlocked(int i) {
+		return blocked[(blockedHead + i) & (blocked.length - 1)];
+	}
+
+	double getBlockedSince(int i) {
+		return blockedSince[(blockedHead + i) & (blocked.length - 1)];
+	}
+
+	// puts a waiting visitor back without counting a new blocked check-in; see SimSnapshot
+	void restoreBlocked(Visitor v, double since) {
+		if (blockedCount == blocked.length) {
+			growBlocked();
+		}
+		int tail = (blockedHead + blockedCount++) & (blocked.length - 1);
+		blocked[tail] = v;
+		blockedSince[tail] = since;
+	}
+
+	private void growBlocked() {
+		Visitor[] visitors = new Visitor[blocked.length * 2];
+		double[] since = new double[visitors.length];
+		for (int i = 0; i < blockedCount; i++) {
+			visitors[i] = getBlocked(i);
+			since[i] = getBlockedSince(i);
+		}
+		blocked = visitors;
+		blockedSince = since;
+		blockedHead = 0;
+	}
+
+	private void dropOldest() {
+		blocked[blockedHead] = null;
+		blockedHead = (blockedHead + 1) & (blocked.length - 1);
+		blockedCount--;
+	}
+
+	// The visitor has left room r; it is released once it is cleaned.
+	public void vacated(Room r, double now) {
+		jobs.add(new Job(r.getNumber(), true, now, sequence++));
+		turnoversLeft++;
+	}
+
+	// A new guest moved into r.
+	public void stayover(Room r, double now) {
+		jobs.add(new Job(r.getNumber(), false, now, sequence++));
+	}
+
+	// true while some room is waiting for or going through a turnover
+	public boolean hasTurnovers() {
+		return turnoversLeft > 0;
+	}
+
+	// The visitor waits for a clean room; a CHECK_IN_TIMEOUT fires when they would give up.
+	public void block(Visitor v, double now, EventSimulation sim) {
+		restoreBlocked(v, now);
+		blockedCheckIns++;
+		sim.schedule(MAX_CHECK_IN_WAIT, SimEvent.Type.CHECK_IN_TIMEOUT, null);
+	}
+
+	// Next visitor still waiting for a room, or null. Visitors who have
+	// waited MAX_CHECK_IN_WAIT or longer have left and are skipped.
+	public Visitor unblock(double now) {
+		expire(now);
+		if (blockedCount == 0) {
+			return null;
+		}
+		Visitor v = blocked[blockedHead];
+		blockedSeconds.record((long) ((now - blockedSince[blockedHead]) * 60));
+		dropOldest();
+		return v;
+	}
+
+	// Visitors who have waited MAX_CHECK_IN_WAIT by now give up. Everyone waits
+	// equally long, so they are always the oldest ones.
+	public void expire(double now) {
+		while (blockedCount > 0 && now - blockedSince[blockedHead] >= MAX_CHECK_IN_WAIT) {
+			dropOldest();
+			gaveUp++;
+		}
+	}
+
+	// Gives every free cleaner the next job and schedules its end.
+	public void dispatch(double now, EventSimulation sim) {
+		for (int c = 0; c < cleaners.length && !jobs.isEmpty(); c++) {
+			if (current[c] != null) {
+				continue;
+			}
+			Job job = jobs.poll();
+			double minutes = job.turnover ? TURNOVER_TIME : STAYOVER_TIME;
+			current[c] = job;
+			freeAt[c] = now + minutes;
+			busyMinutes[c] += minutes;
+			sim.schedule(minutes, SimEvent.Type.CLEANING_DONE, null);
+		}
+	}
+
+	// Completes every job that is done by now; turned-over rooms go back to the inventory.
+	public void finish(double now, RoomInventory rooms) {
+		for (int c = 0; c < cleaners.length; c++) {
+			Job job = current[c];
+			if (job == null || freeAt[c] > now) {
+				continue;
+			}
+			current[c] = null;
+			cleaners[c].setCleaned(true);
+			if (job.turnover) {
+				rooms.release(rooms.room(job.room));
+				turnoversLeft--;
+				turnovers++;
+				turnaroundSeconds.record((long) ((now - job.queuedAt) * 60));
+			} else {
+				stayovers++;
+			}
+		}
+	}
+
+	public long getBlockedCheckIns() {
+		return blockedCheckIns;
+	}
+
+	// blocked visitors who left before a room was ready
+	public long getGaveUp() {
+		return gaveUp;
+	}
+
+	// mean time from check-out until the room can be sold again, in minutes
+	public double getMeanTurnaround() {
+		return turnaroundSeconds.getMean() / 60.0;
+	}
+
+	public void printReport(double minutes) {
+		double busy = 0;
+		for (int c = 0; c < cleaners.length; c++) {
+			busy += busyMinutes[c] - Math.max(0, freeAt[c] - minutes);
+		}
+		System.out.println("Housekeeping: " + policy + ", " + cleaners.length + " cleaners");
+		System.out.printf("  %d turnovers, %d stayovers, cleaner utilization %.1f%%, jobs still queued: %d%n",
+				turnovers, stayovers, 100.0 * busy / (minutes * cleaners.length), jobs.size());
+		System.out.printf("  room turnaround: mean %.1f min, p50 %.1f min, p99 %.1f min, max %.1f min%n",
+				getMeanTurnaround(), turnaroundSeconds.valueAt(50) / 60.0, turnaroundSeconds.valueAt(99) / 60.0,
+				turnaroundSeconds.getMax() / 60.0);
+		System.out.printf("  check-ins blocked on housekeeping: %d, gave up %d, waited mean %.1f min, p99 %.1f min%n",
+				blockedCheckIns, gaveUp, blockedSeconds.getMean() / 60.0, blockedSeconds.valueAt(99) / 60.0);
+	}
+}
@@ -1,19 +1,22 @@
-import java.util.Random;
-
 
 public class Id {
 
-	private int upperbound = 999999999;
-	private int id;
+	private long id;
 	
 	public Id() {
-		this.id = generate();
+		this.id = IdGenerator.next();
+	}
+
+	Id(long id) {
+		this.id = id;
 	}
-	public int getId() {
+
+	public long getId() {
 		return this.id;
 	}
-	private int generate() {
-		Random r = new Random();
-		return r.nextInt(upperbound);
+
+	@Override
+	public String toString() {
+		return Long.toString(id);
 	}
 }
@@ -0,0 +1,68 @@
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+// Compares the old Id scheme (a new Random per visitor) with IdGenerator:
+// throughput with several threads and collisions among the generated ids.
+public class IdBenchmark {
+
+	private static int legacyId() {
+		Random r = new Random();
+		return r.nextInt(999999999);
+	}
+
+	interface IdSource {
+		long next();
+	}
+
+	private static long measure(String label, IdSource source, int threads, int perThread)
+			throws InterruptedException {
+		LongAdder sink = new LongAdder();
+		Thread[] ts = new Thread[threads];
+		long start = System.nanoTime();
+		for (int t = 0; t < threads; t++) {
+			ts[t] = new Thread(() -> {
+				long acc = 0;
+				for (int i = 0; i < perThread; i++) {
+					acc += source.next();
+				}
+				sink.add(acc);
+			});
+			ts[t].start();
+		}
+		for (Thread t : ts) {
+			t.join();
+		}
+		long elapsed = System.nanoTime() - start;
+		long total = (long) threads * perThread;
+		System.out.println(label + ": " + (long) (total * 1e9 / elapsed) + " ids/s with " + threads + " threads");
+		return sink.sum();
+	}
+
+	private static int collisions(IdSource source, int count) {
+		Set<Long> seen = new HashSet<>();
+		int dup = 0;
+		for (int i = 0; i < count; i++) {
+			if (!seen.add(source.next())) {
+				dup++;
+			}
+		}
+		return dup;
+	}
+
+	public static void main(String[] args) throws InterruptedException {
+		int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+		int perThread = args.length > 1 ? Integer.parseInt(args[1]) : 5_000_000;
+
+		for (int round = 0; round < 3; round++) {
+			System.out.println("Round " + (round + 1));
+			measure("  Random per id", IdBenchmark::legacyId, threads, perThread);
+			measure("  IdGenerator  ", IdGenerator::next, threads, perThread);
+		}
+
+		int sample = 1_000_000;
+		System.out.println("Collisions in " + sample + " ids: Random per id = " + collisions(IdBenchmark::legacyId, sample)
+				+ ", IdGenerator = " + collisions(IdGenerator::next, sample));
+	}
+}
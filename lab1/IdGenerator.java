@@ -0,0 +1,23 @@
+import java.util.concurrent.atomic.AtomicLong;
+
+// Hands out unique visitor ids. Each thread reserves a block of ids from a
+// shared counter and then numbers visitors from its block without touching
+// shared state, so concurrent visitor creation does not contend.
+public class IdGenerator {
+
+	static final int BLOCK_SIZE = 1024;
+
+	private static final AtomicLong nextBlock = new AtomicLong();
+
+	// [0] = next id, [1] = end of the reserved block
+	private static final ThreadLocal<long[]> block = ThreadLocal.withInitial(() -> new long[2]);
+
+	public static long next() {
+		long[] b = block.get();
+		if (b[0] == b[1]) {
+			b[0] = nextBlock.getAndIncrement() * BLOCK_SIZE + 1;
+			b[1] = b[0] + BLOCK_SIZE;
+		}
+		return b[0]++;
+	}
+}
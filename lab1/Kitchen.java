@@ -0,0 +1,173 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// Kitchen for EventSimulation. Seated parties put an order ticket in a
+// queue; whenever a cook is free the chef picks the next batch from the
+// queue and the cook prepares it. A batch costs a setup (SETUP_TIME, skipped
+// when the cook's station is already set up for that cuisine) plus
+// PORTION_TIME per portion, and all its orders are ready together.
+//
+// With FIFO every batch is a single order. With BATCH the chef takes the
+// oldest ticket plus every other waiting ticket of the same cuisine, up to
+// MAX_PORTIONS, so one setup is shared by several orders while the oldest
+// ticket still goes first.
+public class Kitchen {
+
+	public enum Policy {
+		FIFO, BATCH
+	}
+
+	static final double SETUP_TIME = 6.0;
+	static final double PORTION_TIME = 0.5;
+	static final int MAX_PORTIONS = 12;
+
+	private final Policy policy;
+	private final Chev chev;
+	private final Cook[] cooks;
+	private final double[] freeAt;
+	private final int[] station;
+	private final double[] busyMinutes;
+	private final List<Party> tickets = new ArrayList<>();
+	private final List<Party> batch = new ArrayList<>();
+
+	private long orders = 0;
+	private long portions = 0;
+	private long batches = 0;
+	private long batched = 0;
+	private long setups = 0;
+	private final LatencyHistogram serveSeconds = new LatencyHistogram();
+
+	public Kitchen(Policy policy, int cookCount) {
+		this.policy = policy;
+		this.chev = new Chev("Boris");
+		cooks = new Cook[cookCount];
+		for (int i = 0; i < cookCount; i++) {
+			cooks[i] = new Cook("Abdul-" + i);
+		}
+		freeAt = new double[cookCount];
+		station = new int[cookCount];
+		Arrays.fill(station, -1);
+		busyMinutes = new double[cookCount];
+	}
+
+	// Same cooks, stations and statistics, without tickets; see SimSnapshot.
+	Kitchen copy() {
+		Kitchen k = new Kitchen(policy, cooks.length);
+		System.arraycopy(freeAt, 0, k.freeAt, 0, freeAt.length);
+		System.arraycopy(station, 0, k.station, 0, station.length);
+		System.arraycopy(busyMinutes, 0, k.busyMinutes, 0, busyMinutes.length);
+		k.orders = orders;
+		k.portions = portions;
+		k.batches = batches;
+		k.batched = batched;
+		k.setups = setups;
+		k.serveSeconds.merge(serveSeconds);
+		return k;
+	}
+
+	public Policy getPolicy() {
+		return policy;
+	}
+
+	public int getCookCount() {
+		return cooks.length;
+	}
+
+	List<Party> getTickets() {
+		return tickets;
+	}
+
+	Cook cook(int i) {
+		return cooks[i];
+	}
+
+	int indexOf(Cook c) {
+		for (int i = 0; i < cooks.length; i++) {
+			if (cooks[i] == c) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	// Queues the order of a seated party; p.cuisine and p.dish must be set.
+	public void order(Party p, double now) {
+		p.orderedAt = now;
+		tickets.add(p);
+	}
+
+	// Starts a batch on every free cook while there are tickets. Orders
+	// started here get their readyAt set and are added to 'started'.
+	public void dispatch(double now, List<Party> started) {
+		for (int c = 0; c < cooks.length && !tickets.isEmpty(); c++) {
+			if (freeAt[c] > now) {
+				continue;
+			}
+			chev.nextBatch(tickets, policy == Policy.BATCH ? MAX_PORTIONS : 0, batch);
+			int cuisine = batch.get(0).cuisine;
+			int size = 0;
+			for (Party p : batch) {
+				size += p.size;
+			}
+			double minutes = size * PORTION_TIME;
+			if (station[c] != cuisine) {
+				minutes += SETUP_TIME;
+				station[c] = cuisine;
+				setups++;
+			}
+			freeAt[c] = now + minutes;
+			busyMinutes[c] += minutes;
+			batches++;
+			batched += batch.size();
+			for (Party p : batch) {
+				p.readyAt = freeAt[c];
+				p.cook = cooks[c];
+				started.add(p);
+			}
+			batch.clear();
+		}
+	}
+
+	// The order of p is ready and goes out to the table.
+	public void serve(Party p, double now) {
+		p.cook.servFood(p.visitor, p.dish);
+		orders++;
+		portions += p.size;
+		serveSeconds.record((long) ((now - p.orderedAt) * 60));
+	}
+
+	public long getOrders() {
+		return orders;
+	}
+
+	public long getPortions() {
+		return portions;
+	}
+
+	// mean order-to-serve time in minutes
+	public double getMeanServe() {
+		return serveSeconds.getMean() / 60.0;
+	}
+
+	// order-to-serve time at the given percentile (0-100), in minutes
+	public double getServeAt(double percentile) {
+		return serveSeconds.valueAt(percentile) / 60.0;
+	}
+
+	public void printReport(double minutes) {
+		double hours = minutes / 60.0;
+		double busy = 0;
+		for (int c = 0; c < cooks.length; c++) {
+			// leave out work on batches that finish after 'minutes'
+			busy += busyMinutes[c] - Math.max(0, freeAt[c] - minutes);
+		}
+		System.out.println("Kitchen: " + policy + ", " + cooks.length + " cooks");
+		System.out.printf("  %d orders, %.1f dishes/hour, %d batches (%.1f orders each), %d station setups%n",
+				orders, portions / hours, batches, batches == 0 ? 0.0 : (double) batched / batches, setups);
+		System.out.printf("  order to serve: mean %.1f min, p50 %.1f min, p99 %.1f min, max %.1f min%n",
+				getMeanServe(), getServeAt(50), getServeAt(99), serveSeconds.getMax() / 60.0);
+		System.out.printf("  cook utilization %.1f%%, tickets still waiting: %d%n",
+				100.0 * busy / (minutes * cooks.length), tickets.size());
+	}
+}
@@ -0,0 +1,91 @@
+import java.util.Arrays;
+
+// Log-linear histogram of latencies in nanoseconds, in the style of
+// HdrHistogram: values below 128 are counted exactly, larger values fall
+// into buckets of 64 steps per power of two (under 1.6% relative error).
+// Recording is a couple of shifts and one array increment. A histogram is
+// meant to be written by a single thread; merge() combines several of them.
+public class LatencyHistogram {
+
+	static final int SUB_BITS = 7;
+	static final int SUB = 1 << SUB_BITS;
+	static final int HALF = SUB >> 1;
+	static final int BUCKETS = SUB + (63 - SUB_BITS) * HALF;
+
+	private final long[] counts = new long[BUCKETS];
+	private long count;
+	private long sum;
+	private long max;
+
+	static int index(long value) {
+		if (value < SUB) {
+			return (int) Math.max(value, 0);
+		}
+		int shift = 63 - Long.numberOfLeadingZeros(value) - (SUB_BITS - 1);
+		return SUB + (shift - 1) * HALF + (int) (value >>> shift) - HALF;
+	}
+
+	// largest value that falls into bucket i
+	static long highestValue(int i) {
+		if (i < SUB) {
+			return i;
+		}
+		int j = i - SUB;
+		int shift = j / HALF + 1;
+		long top = j % HALF + HALF;
+		return ((top + 1) << shift) - 1;
+	}
+
+	public void record(long value) {
+		counts[index(value)]++;
+		count++;
+		sum += value;
+		if (value > max) {
+			max = value;
+		}
+	}
+
+	public void merge(LatencyHistogram other) {
+		for (int i = 0; i < BUCKETS; i++) {
+			counts[i] += other.counts[i];
+		}
+		count += other.count;
+		sum += other.sum;
+		max = Math.max(max, other.max);
+	}
+
+	public void reset() {
+		Arrays.fill(counts, 0);
+		count = 0;
+		sum = 0;
+		max = 0;
+	}
+
+	public long getCount() {
+		return count;
+	}
+
+	public long getMax() {
+		return max;
+	}
+
+	public double getMean() {
+		return count == 0 ? 0.0 : (double) sum / count;
+	}
+
+	// value at the given percentile (0-100), reported as the top of its bucket
+	public long valueAt(double percentile) {
+		if (count == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+		long seen = 0;
+		for (int i = 0; i < BUCKETS; i++) {
+			seen += counts[i];
+			if (seen >= rank) {
+				return Math.min(highestValue(i), max);
+			}
+		}
+		return max;
+	}
+}
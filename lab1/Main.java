@@ -1,9 +1,395 @@
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.random.RandomGenerator;
 
 public class Main {
 
-	public static void main(String[] args) throws InterruptedException {
-		Simulation.run_simul();
+	// modes that run more than one simulation, each with its own hotel
+	private static final String[] MANY_SIMULATIONS = {"restaurant", "sweep", "whatif", "kitchen", "housekeeping"};
+
+	public static void main(String[] args) throws InterruptedException, IOException {
+		// -Dhotel.log=console|discard|memory|file:<path>
+		EventLog.setSink(EventLog.fromSpec(System.getProperty("hotel.log", "console")));
+		// -Dhotel.latency=true prints per-stage latency percentiles at the end,
+		// -Dhotel.latency.sample=N times only one operation in N
+		StageLatency.setEnabled(Boolean.getBoolean("hotel.latency"));
+		StageLatency.setSampleRate(Integer.getInteger("hotel.latency.sample", 1));
+		// -Dhotel.statelog=<path> records every state change in a binary log for "replay"
+		String stateLogPath = System.getProperty("hotel.statelog");
+		if (stateLogPath != null && args.length > 0 && Arrays.asList(MANY_SIMULATIONS).contains(args[0])) {
+			// the log is process-wide, so several hotels would interleave in one file
+			throw new IllegalArgumentException("-Dhotel.statelog records a single simulation and cannot be used with \""
+					+ args[0] + "\"");
+		}
+		if (stateLogPath != null) {
+			StateLog.setCurrent(new StateLog(Paths.get(stateLogPath), 1 << 20));
+		}
+		try {
+			if (args.length > 0 && args[0].equals("replay")) {
+				Path file = Paths.get(args.length > 1 ? args[1] : "hotel.statelog");
+				long start = System.nanoTime();
+				StateReplay state = StateReplay.replay(file);
+				long elapsed = System.nanoTime() - start;
+				state.printReport();
+				System.out.printf("Replayed %,d bytes in %d ms%n", Files.size(file), elapsed / 1_000_000);
+				return;
+			}
+			if (args.length > 0 && args[0].equals("events")) {
+				double horizon = args.length > 1 ? Double.parseDouble(args[1]) : 24 * 60;
+				EventSimulation sim = new EventSimulation(42, 2.0, 200);
+				sim.run(horizon, Long.MAX_VALUE);
+				sim.printSummary();
+				return;
+			}
+			if (args.length > 0 && args[0].equals("restaurant")) {
+				// four hours of dinner peak (a visitor every minute) for growing restaurant sizes
+				EventLog.setSink(new DiscardSink());
+				for (int tables = 10; tables <= EventSimulation.DEFAULT_TABLES.length; tables += 5) {
+					int[] seats = Arrays.copyOf(EventSimulation.DEFAULT_TABLES, tables);
+					EventSimulation sim = new EventSimulation(42, 1.0, 200, seats, Math.max(1, tables / 5));
+					sim.run(4 * 60, Long.MAX_VALUE);
+					sim.getRestaurant().printReport(sim.getClock());
+				}
+				return;
+			}
+			if (args.length > 0 && args[0].equals("sweep")) {
+				double days = args.length > 1 ? Double.parseDouble(args[1]) : 7;
+				runSweep(days * 24 * 60, args.length > 2 ? Paths.get(args[2]) : null);
+				return;
+			}
+			if (args.length > 0 && args[0].equals("whatif")) {
+				double at = args.length > 1 ? Double.parseDouble(args[1]) : 18 * 60;
+				runWhatIf(at, 24 * 60);
+				return;
+			}
+			if (args.length > 0 && args[0].equals("kitchen")) {
+				// four hours of dinner peak, cooking each order on its own vs in cuisine batches
+				EventLog.setSink(new DiscardSink());
+				for (int cooks = 2; cooks <= 4; cooks++) {
+					for (Kitchen.Policy policy : Kitchen.Policy.values()) {
+						EventSimulation sim = new EventSimulation(42, 1.0, 200);
+						sim.setKitchen(new Kitchen(policy, cooks));
+						sim.run(4 * 60, Long.MAX_VALUE);
+						sim.getKitchen().printReport(sim.getClock());
+					}
+				}
+				return;
+			}
+			if (args.length > 0 && args[0].equals("arrivals")) {
+				double days = args.length > 1 ? Double.parseDouble(args[1]) : 365;
+				runArrivals(days * 24 * 60);
+				return;
+			}
+			if (args.length > 0 && args[0].equals("housekeeping")) {
+				// three busy days, cleaning in arrival order vs turnovers first
+				EventLog.setSink(new DiscardSink());
+				for (int cleaners = 4; cleaners <= 8; cleaners += 2) {
+					for (Housekeeping.Policy policy : Housekeeping.Policy.values()) {
+						EventSimulation sim = new EventSimulation(42, 4.0, 200);
+						sim.setHousekeeping(new Housekeeping(policy, cleaners));
+						sim.run(3 * 24 * 60, Long.MAX_VALUE);
+						sim.getHousekeeping().printReport(sim.getClock());
+						System.out.printf("  rooms taken %.1f%% of the time, check-ins %d, turned away %d%n",
+								100 * sim.getMeanOccupancy(), sim.getCheckIns(),
+								sim.getTurnedAway() + sim.getHousekeeping().getGaveUp());
+					}
+				}
+				return;
+			}
+			if (args.length > 0 && args[0].equals("baggage")) {
+				int porters = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+				int bags = args.length > 2 ? Integer.parseInt(args[2]) : 1_000_000;
+				runBaggage(porters, bags);
+				return;
+			}
+			if (args.length > 0 && args[0].equals("scheduler")) {
+				int cooks = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+				int orders = args.length > 2 ? Integer.parseInt(args[2]) : 20000;
+				runScheduler(cooks, orders);
+				return;
+			}
+			if (args.length > 0 && args[0].equals("store")) {
+				int visitors = args.length > 1 ? Integer.parseInt(args[1]) : 10_000_000;
+				runStore(visitors);
+				return;
+			}
+			if (args.length > 0 && args[0].equals("ledger")) {
+				int cashiers = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+				int payments = args.length > 2 ? Integer.parseInt(args[2]) : 1_000_000;
+				Path file = Paths.get(args.length > 3 ? args[3] : "payments.ledger");
+				runLedger(cashiers, payments, file);
+				return;
+			}
+			if (args.length > 0 && args[0].equals("pipeline")) {
+				int producers = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+				long visitors = args.length > 2 ? Long.parseLong(args[2]) : 1000;
+				new PipelineSimulation(42, 1024).run(producers, visitors);
+				return;
+			}
+			if (args.length > 0 && (args[0].equals("virtual") || args[0].equals("platform"))) {
+				ThreadedSimulation.Mode mode = args[0].equals("virtual")
+						? ThreadedSimulation.Mode.VIRTUAL : ThreadedSimulation.Mode.PLATFORM;
+				long visitors = args.length > 1 ? Long.parseLong(args[1]) : 10000;
+				new ThreadedSimulation(mode, 42, 200, 1000, 100, 10, 10).run(visitors);
+				return;
+			}
+			Simulation.run_simul();
+		} finally {
+			if (StateLog.getCurrent() != null) {
+				StateLog.getCurrent().close();
+			}
+			EventLog.getSink().close();
+			if (StageLatency.isEnabled()) {
+				StageLatency.report();
+			}
+		}
+	}
+
+	// Keeps every visitor in a VisitorStore and serves them through one flyweight view.
+	private static void runStore(int visitors) {
+		Runtime rt = Runtime.getRuntime();
+		System.gc();
+		long heapBefore = rt.totalMemory() - rt.freeMemory();
+		long start = System.nanoTime();
+
+		VisitorStore store = new VisitorStore(visitors);
+		RandomGenerator rand = RandomSource.current();
+		for (int i = 0; i < visitors; i++) {
+			int choise = rand.nextInt(10) + 1;
+			store.add(choise > 5 || choise <= 2, choise > 2);
+		}
+
+		Hotel hotel = new Hotel(10_000);
+		ReceptionStaff rs = new ReceptionStaff("Steve");
+		Cashier cashier = new Cashier("Lena");
+		VisitorView v = store.view(0, hotel.getRooms());
+		long paid = 0;
+		for (int i = 0; i < visitors; i++) {
+			v.moveTo(i);
+			if (v.getTiredState()) {
+				// the store records who has which room, so the room lets go of the moving view
+				if (rs.assignRoom(hotel, v) != null) {
+					v.room.setVisitor(null);
+				}
+				if (hotel.getRooms().isFullyBooked()) {
+					// everybody checks out once the hotel is full; visitors keep their last room number
+					for (int r = 0; r < hotel.getRooms().size(); r++) {
+						hotel.getRooms().release(hotel.getRooms().room(r));
+					}
+				}
+			}
+			if (v.getHungryState()) {
+				cashier.payment();
+				v.paymentState = true;
+				paid++;
+			}
+		}
+		v.flush();
+		long elapsed = System.nanoTime() - start;
+
+		System.gc();
+		long heapAfter = rt.totalMemory() - rt.freeMemory();
+		System.out.printf("Stored and served %,d visitors in %d ms, %,d paid%n", store.size(), elapsed / 1_000_000, paid);
+		System.out.printf("Heap used by the store: %,d MB (%.1f bytes per visitor)%n",
+				(heapAfter - heapBefore) >> 20, (double) (heapAfter - heapBefore) / store.size());
+	}
+
+	// Several cashiers take payments at once, all recorded in one ledger file,
+	// which is then read back to check the totals.
+	private static void runLedger(int cashierCount, int payments, Path file) throws InterruptedException, IOException {
+		EventLog.setSink(new DiscardSink());
+		long expected;
+		long start = System.nanoTime();
+		try (PaymentLedger ledger = new PaymentLedger(file, 1000)) {
+			long before = ledger.size();
+			Thread[] desks = new Thread[cashierCount];
+			for (int d = 0; d < desks.length; d++) {
+				Cashier cashier = new Cashier("Lena-" + d);
+				cashier.setLedger(ledger);
+				desks[d] = new Thread(() -> {
+					Visitor v = new Visitor(true, false);
+					for (int i = 0; i < payments / desks.length; i++) {
+						cashier.payment(v, 10 + i % 90);
+					}
+				});
+				desks[d].start();
+			}
+			for (Thread t : desks) {
+				t.join();
+			}
+			expected = ledger.size() - before;
+		}
+		long elapsed = System.nanoTime() - start;
+		System.out.printf("%,d payments from %d cashiers in %d ms (%,.0f payments/s)%n",
+				expected, cashierCount, elapsed / 1_000_000, expected * 1e9 / elapsed);
+
+		start = System.nanoTime();
+		long[] totals = PaymentLedger.totalsInCents(file);
+		elapsed = System.nanoTime() - start;
+		for (int s = 0; s < PaymentLedger.STRATEGIES.length; s++) {
+			if (totals[s] != 0) {
+				System.out.printf("Total paid by %s: %,.2f%n", PaymentLedger.STRATEGIES[s], totals[s] / 100.0);
+			}
+		}
+		System.out.println("Ledger scanned in " + elapsed / 1_000_000 + " ms");
+	}
+
+	// Orders of uneven size all go to the first cook; the others steal them.
+	// Halfway through, the last cook goes off shift.
+	private static void runScheduler(int cookCount, int orders) throws InterruptedException {
+		List<Cook> cooks = new ArrayList<>();
+		for (int i = 0; i < cookCount; i++) {
+			cooks.add(new Cook("Abdul-" + i));
+		}
+		StaffScheduler<Cook> kitchen = new StaffScheduler<>(cooks);
+		for (Cook c : cooks) {
+			kitchen.startShift(c);
+		}
+		kitchen.start();
+
+		RandomGenerator rand = RandomSource.current();
+		for (int i = 0; i < orders; i++) {
+			Visitor v = new Visitor(true, false);
+			long prepNanos = 20_000 + rand.nextInt(180_000);
+			kitchen.submitTo(cooks.get(0), cook -> {
+				long end = System.nanoTime() + prepNanos;
+				while (System.nanoTime() < end) {
+					Thread.onSpinWait();
+				}
+				cook.servFood(v);
+			});
+			if (i == orders / 2) {
+				kitchen.endShift(cooks.get(cookCount - 1));
+			}
+		}
+		kitchen.shutdown();
+		kitchen.printReport();
 	}
+
+	// Streams the visitors of a long horizon under each arrival process, once
+	// sequentially and once in parallel; both must see the same visitors.
+	private static void runArrivals(double minutes) {
+		String[] names = {"poisson", "time of day", "time of day + tour buses"};
+		ArrivalProcess[] processes = {
+			ArrivalProcess.poisson(2.0),
+			ArrivalProcess.timeOfDay(2.0, ArrivalProcess.HOTEL_DAY),
+			ArrivalProcess.withBuses(ArrivalProcess.timeOfDay(2.0, ArrivalProcess.HOTEL_DAY), 12 * 60, 40, 15)
+		};
+		for (int i = 0; i < processes.length; i++) {
+			long start = System.nanoTime();
+			long sequential = ArrivalStream.visitors(processes[i], 42, minutes, false).count();
+			long middle = System.nanoTime();
+			long[] perHour = ArrivalStream.visitors(processes[i], 42, minutes, true)
+					.collect(() -> new long[24], (h, v) -> h[(int) (v.getArrivedAt() / 60) % 24]++,
+							(a, b) -> { for (int h = 0; h < 24; h++) a[h] += b[h]; });
+			long end = System.nanoTime();
+			long parallel = Arrays.stream(perHour).sum();
+			System.out.printf("%-26s %,d visitors: sequential %d ms, parallel %d ms, same visitors: %b%n",
+					names[i], sequential, (middle - start) / 1_000_000, (end - middle) / 1_000_000, sequential == parallel);
+			StringBuilder sb = new StringBuilder("  per hour of day:");
+			for (long h : perHour) {
+				sb.append(' ').append(h * 100 / Math.max(1, parallel));
+			}
+			System.out.println(sb.append(" (%)"));
+		}
+	}
+
+	// Sweeps arrival rate, visitor mix, rooms, tables and waiters on all cores.
+	// The table is printed, or written to csv when a file is given.
+	private static void runSweep(double minutes, Path csv) throws InterruptedException, IOException {
+		EventLog.setSink(new DiscardSink());
+		ParameterSweep sweep = new ParameterSweep(42, minutes);
+		sweep.addGrid(new double[] {0.5, 1.0, 2.0, 4.0},
+				new int[][] {{20, 30}, {10, 10}, {40, 10}, {10, 40}},
+				new int[] {100, 200, 400},
+				new int[] {10, 20, 30},
+				new int[] {2, 4, 6});
+		int cores = Runtime.getRuntime().availableProcessors();
+		long start = System.nanoTime();
+		sweep.run(cores);
+		long elapsed = System.nanoTime() - start;
+		if (csv == null) {
+			sweep.printTable();
+		} else {
+			sweep.writeCsv(csv);
+		}
+		System.out.printf("%d configurations of %.0f simulated days on %d cores in %d ms%n",
+				sweep.size(), minutes / (24 * 60), cores, elapsed / 1_000_000);
+	}
+
+	// Runs the day up to 'at' once, then forks the rest of it into what-if
+	// branches that each run on their own thread. The original simulation
+	// carries on as well and must end up exactly like the unchanged branch.
+	private static void runWhatIf(double at, double until) throws InterruptedException {
+		EventLog.setSink(new DiscardSink());
+		EventSimulation day = new EventSimulation(42, 2.0, 200);
+		day.run(at, Long.MAX_VALUE);
+
+		long start = System.nanoTime();
+		SimSnapshot snapshot = day.snapshot();
+		String[] names = {"as is", "two more waiters", "a visitor every minute", "a visitor every 4 minutes"};
+		EventSimulation[] branches = new EventSimulation[names.length];
+		for (int i = 0; i < branches.length; i++) {
+			branches[i] = snapshot.fork();
+		}
+		long elapsed = System.nanoTime() - start;
+		branches[1].getRestaurant().addWaiter(new Waiter("Maria-extra-0"));
+		branches[1].getRestaurant().addWaiter(new Waiter("Maria-extra-1"));
+		branches[2].setMeanArrivalGap(1.0);
+		branches[3].setMeanArrivalGap(4.0);
+		System.out.printf("Snapshot at minute %.0f (%d pending events, %d visitors) and %d forks in %d us%n",
+				snapshot.getClock(), snapshot.eventCount(), snapshot.visitorCount(), branches.length, elapsed / 1000);
+
+		Thread[] threads = new Thread[branches.length];
+		for (int i = 0; i < threads.length; i++) {
+			EventSimulation branch = branches[i];
+			threads[i] = new Thread(() -> branch.run(until, Long.MAX_VALUE));
+			threads[i].start();
+		}
+		day.run(until, Long.MAX_VALUE);
+		for (Thread t : threads) {
+			t.join();
+		}
+
+		for (int i = 0; i < branches.length; i++) {
+			System.out.println();
+			System.out.println("--- " + names[i] + " ---");
+			branches[i].printSummary();
+		}
+		System.out.println();
+		System.out.println("Original run matches the unchanged branch: "
+				+ (day.getProcessed() == branches[0].getProcessed()
+						&& day.getArrivals() == branches[0].getArrivals()
+						&& day.getHotel().getRooms().available() == branches[0].getHotel().getRooms().available()));
+	}
+
+	// Two reception threads check visitors in and drop their bags for the porters.
+	private static void runBaggage(int porters, int bags) throws InterruptedException {
+		Hotel hotel = new Hotel(1000);
+		BaggageService service = new BaggageService(porters, 16);
+		service.start();
+		Thread[] desks = new Thread[2];
+		for (int d = 0; d < desks.length; d++) {
+			desks[d] = new Thread(() -> {
+				for (int i = 0; i < bags / desks.length; i++) {
+					Room r = hotel.getRooms().room(i % hotel.getRooms().size());
+					service.dropOff(new Baggage(), r);
+				}
+			});
+			desks[d].start();
+		}
+		for (Thread t : desks) {
+			t.join();
+		}
+		service.shutdown();
+		service.printReport();
+	}
+
 		/*public static void main(String[] args) {
 			CleanerStaff c = new CleanerStaff();
 
@@ -0,0 +1,29 @@
+import java.util.ArrayList;
+import java.util.List;
+
+// Keeps events in memory unformatted; lines() formats them on demand.
+public class MemorySink implements EventSink {
+
+	private final List<Object[]> events = new ArrayList<>();
+
+	@Override
+	public synchronized void write(String template, Object a, Object b, Object c) {
+		events.add(new Object[] {template, a, b, c});
+	}
+
+	public synchronized int size() {
+		return events.size();
+	}
+
+	public synchronized void clear() {
+		events.clear();
+	}
+
+	public synchronized List<String> lines() {
+		List<String> lines = new ArrayList<>(events.size());
+		for (Object[] e : events) {
+			lines.add(EventLog.format((String) e[0], e[1], e[2], e[3]));
+		}
+		return lines;
+	}
+}
@@ -0,0 +1,152 @@
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+// Runs a grid of EventSimulation configurations (arrival rate, visitor mix,
+// rooms, tables, waiters) and collects one row of results per configuration.
+// Every configuration is an independent simulation with its own random stream,
+// so they run side by side on a fork-join pool with no shared state; the
+// results do not depend on how many threads are used.
+public class ParameterSweep {
+
+	// one point of the grid
+	public static class Config {
+
+		final double meanArrivalGap;
+		final int hungryOnly;
+		final int tiredOnly;
+		final int rooms;
+		final int tables;
+		final int waiters;
+
+		public Config(double meanArrivalGap, int hungryOnly, int tiredOnly, int rooms, int tables, int waiters) {
+			this.meanArrivalGap = meanArrivalGap;
+			this.hungryOnly = hungryOnly;
+			this.tiredOnly = tiredOnly;
+			this.rooms = rooms;
+			this.tables = tables;
+			this.waiters = waiters;
+		}
+	}
+
+	static final String[] COLUMNS = {
+		"gap", "eat%", "stay%", "rooms", "tables", "waiters",
+		"checkins/h", "payments/h", "turned away%", "occupancy%", "wait mean", "wait p99",
+		"bill wait"
+	};
+
+	private final long seed;
+	private final double minutes;
+	private final List<Config> configs = new ArrayList<>();
+	private double[][] results;
+
+	public ParameterSweep(long seed, double minutes) {
+		this.seed = seed;
+		this.minutes = minutes;
+	}
+
+	public void add(Config c) {
+		configs.add(c);
+	}
+
+	// Adds every combination of the given values.
+	public void addGrid(double[] gaps, int[][] mixes, int[] rooms, int[] tables, int[] waiters) {
+		for (double gap : gaps) {
+			for (int[] mix : mixes) {
+				for (int r : rooms) {
+					for (int t : tables) {
+						for (int w : waiters) {
+							add(new Config(gap, mix[0], mix[1], r, t, w));
+						}
+					}
+				}
+			}
+		}
+	}
+
+	public int size() {
+		return configs.size();
+	}
+
+	public void run(int parallelism) throws InterruptedException {
+		List<Callable<double[]>> tasks = new ArrayList<>(configs.size());
+		// every configuration sees the same random numbers, so differences
+		// between rows come from the configuration and not from luck
+		for (Config c : configs) {
+			tasks.add(() -> runOne(c, seed));
+		}
+		ForkJoinPool pool = new ForkJoinPool(parallelism);
+		try {
+			List<Future<double[]>> done = pool.invokeAll(tasks);
+			results = new double[done.size()][];
+			for (int i = 0; i < results.length; i++) {
+				results[i] = done.get(i).get();
+			}
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("A sweep configuration failed", e.getCause());
+		} finally {
+			pool.shutdown();
+		}
+	}
+
+	private double[] runOne(Config c, long configSeed) {
+		int[] seats = new int[c.tables];
+		for (int t = 0; t < seats.length; t++) {
+			seats[t] = EventSimulation.DEFAULT_TABLES[t % EventSimulation.DEFAULT_TABLES.length];
+		}
+		EventSimulation sim = new EventSimulation(configSeed, c.meanArrivalGap, c.rooms, seats, c.waiters);
+		sim.setVisitorMix(c.hungryOnly, c.tiredOnly);
+		sim.run(minutes, Long.MAX_VALUE);
+
+		double hours = sim.getClock() / 60.0;
+		Restaurant r = sim.getRestaurant();
+		long wantedRoom = sim.getCheckIns() + sim.getTurnedAway();
+		return new double[] {
+			c.meanArrivalGap, c.hungryOnly, c.tiredOnly, c.rooms, c.tables, c.waiters,
+			sim.getCheckIns() / hours, sim.getPayments() / hours,
+			wantedRoom == 0 ? 0.0 : 100.0 * sim.getTurnedAway() / wantedRoom,
+			100.0 * sim.getMeanOccupancy(), r.getMeanWait(), r.getWaitAt(99), r.getMeanBillWait()
+		};
+	}
+
+	// results of configuration i, in COLUMNS order; valid after run()
+	public double[] result(int i) {
+		return results[i];
+	}
+
+	public void printTable() {
+		StringBuilder sb = new StringBuilder();
+		for (String c : COLUMNS) {
+			sb.append(String.format("%13s", c));
+		}
+		System.out.println(sb);
+		for (double[] row : results) {
+			sb.setLength(0);
+			for (double v : row) {
+				sb.append(String.format(Locale.ROOT, "%13.2f", v));
+			}
+			System.out.println(sb);
+		}
+	}
+
+	public void writeCsv(Path file) throws IOException {
+		try (PrintWriter out = new PrintWriter(Files.newBufferedWriter(file))) {
+			out.println(String.join(",", COLUMNS));
+			for (double[] row : results) {
+				StringBuilder sb = new StringBuilder();
+				for (int i = 0; i < row.length; i++) {
+					sb.append(i == 0 ? "" : ",").append(String.format(Locale.ROOT, "%.4f", row[i]));
+				}
+				out.println(sb);
+			}
+		}
+	}
+}
@@ -0,0 +1,40 @@
+
+// A group of diners that arrives with a visitor and is seated together.
+public class Party {
+
+	final Visitor visitor;
+	final int size;
+	final double arrivedAt;
+	Table table;
+	Waiter waiter;
+	double seatedAt;
+
+	// the order, when a Kitchen cooks for the restaurant
+	int cuisine;
+	int dish;
+	double orderedAt;
+	double readyAt;
+	Cook cook;
+
+	public Party(Visitor visitor, int size, double arrivedAt) {
+		this.visitor = visitor;
+		this.size = size;
+		this.arrivedAt = arrivedAt;
+	}
+
+	public Visitor getVisitor() {
+		return visitor;
+	}
+
+	public int getSize() {
+		return size;
+	}
+
+	public Table getTable() {
+		return table;
+	}
+
+	public Waiter getWaiter() {
+		return waiter;
+	}
+}
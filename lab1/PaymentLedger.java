@@ -0,0 +1,191 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+// Append-only ledger of payments in a memory-mapped file. Every payment is a
+// fixed 32-byte record:
+//
+//   visitor id (8) | amount in cents (8) | timestamp, epoch micros (8) | strategy (4) | 0 (4)
+//
+// Writers reserve a slot with one atomic increment and fill it in place, so
+// appends from many threads do not block each other. A background flusher
+// does group commit: it advances over the slots that are completely written,
+// forces them to disk in one call and publishes the durable count in the
+// file header. The file is mapped in 64 MB segments as it grows.
+public class PaymentLedger implements Closeable {
+
+	public static final int CASH = 0;
+	public static final int CREDIT_CARD = 1;
+	public static final int PAYPAL = 2;
+	static final String[] STRATEGIES = {"cash", "credit card", "PayPal"};
+
+	static final int RECORD_SIZE = 32;
+	static final int HEADER_SIZE = 64;
+	static final long MAGIC = 0x4c45444745523031L; // "LEDGER01"
+	static final int SEGMENT_SIZE = 64 << 20;
+	static final int RECORDS_PER_SEGMENT = SEGMENT_SIZE / RECORD_SIZE;
+	static final int MAX_SEGMENTS = 4096;
+
+	private final FileChannel channel;
+	private final MappedByteBuffer header;
+	private final AtomicReferenceArray<MappedByteBuffer> segments = new AtomicReferenceArray<>(MAX_SEGMENTS);
+	private final AtomicLong next;
+	private volatile long durable;
+	private volatile boolean closed = false;
+	private final Thread flusher;
+	private final long flushIntervalNanos;
+
+	private final long epochMicrosAtStart = System.currentTimeMillis() * 1000;
+	private final long nanosAtStart = System.nanoTime();
+
+	// Opens (or creates) the ledger; new records are appended after the durable ones.
+	public PaymentLedger(Path file, long flushIntervalMicros) throws IOException {
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+		header.order(ByteOrder.LITTLE_ENDIAN);
+		if (header.getLong(0) != MAGIC) {
+			header.putLong(0, MAGIC);
+			header.putLong(8, 0);
+		}
+		durable = header.getLong(8);
+		// drop slots a previous run reserved but never committed, so their
+		// timestamps cannot be mistaken for completed records
+		channel.truncate(HEADER_SIZE + durable * RECORD_SIZE);
+		next = new AtomicLong(durable);
+		flushIntervalNanos = flushIntervalMicros * 1000;
+
+		flusher = new Thread(this::flushLoop, "ledger-flusher");
+		flusher.setDaemon(true);
+		flusher.start();
+	}
+
+	private MappedByteBuffer segment(int s) {
+		MappedByteBuffer buf = segments.get(s);
+		if (buf == null) {
+			synchronized (segments) {
+				buf = segments.get(s);
+				if (buf == null) {
+					try {
+						buf = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + (long) s * SEGMENT_SIZE, SEGMENT_SIZE);
+					} catch (IOException e) {
+						throw new IllegalStateException("Cannot grow the payment ledger", e);
+					}
+					buf.order(ByteOrder.LITTLE_ENDIAN);
+					segments.set(s, buf);
+				}
+			}
+		}
+		return buf;
+	}
+
+	// Appends a payment and returns its record number. The record becomes
+	// durable with the next group commit; see awaitDurable().
+	public long append(long visitorId, double amount, int strategy) {
+		long index = next.getAndIncrement();
+		MappedByteBuffer buf = segment((int) (index / RECORDS_PER_SEGMENT));
+		int at = (int) (index % RECORDS_PER_SEGMENT) * RECORD_SIZE;
+		buf.putLong(at, visitorId);
+		buf.putLong(at + 8, Math.round(amount * 100));
+		buf.putInt(at + 24, strategy);
+		// the timestamp is written last and marks the record as complete
+		VarHandle.releaseFence();
+		buf.putLong(at + 16, epochMicrosAtStart + (System.nanoTime() - nanosAtStart) / 1000);
+		return index;
+	}
+
+	public long size() {
+		return next.get();
+	}
+
+	public long durableCount() {
+		return durable;
+	}
+
+	// Blocks until record 'index' has been forced to disk.
+	public void awaitDurable(long index) {
+		while (durable <= index && !closed) {
+			LockSupport.parkNanos(flushIntervalNanos / 4 + 1);
+		}
+	}
+
+	private void flushLoop() {
+		while (!closed) {
+			LockSupport.parkNanos(flushIntervalNanos);
+			commit();
+		}
+	}
+
+	// One group commit: everything completely written so far is forced to disk.
+	private synchronized void commit() {
+		long from = durable;
+		long to = from;
+		long end = next.get();
+		while (to < end) {
+			MappedByteBuffer buf = segments.get((int) (to / RECORDS_PER_SEGMENT));
+			if (buf == null || buf.getLong((int) (to % RECORDS_PER_SEGMENT) * RECORD_SIZE + 16) == 0) {
+				break;
+			}
+			to++;
+		}
+		if (to == from) {
+			return;
+		}
+		VarHandle.acquireFence();
+		// force only the records written since the last commit, not whole segments
+		for (int s = (int) (from / RECORDS_PER_SEGMENT); s <= (int) ((to - 1) / RECORDS_PER_SEGMENT); s++) {
+			long base = (long) s * RECORDS_PER_SEGMENT;
+			int first = (int) (Math.max(from, base) - base);
+			int last = (int) (Math.min(to, base + RECORDS_PER_SEGMENT) - base);
+			segments.get(s).force(first * RECORD_SIZE, (last - first) * RECORD_SIZE);
+		}
+		header.putLong(8, to);
+		header.force();
+		durable = to;
+	}
+
+	@Override
+	public void close() throws IOException {
+		// let writers that already reserved a slot finish before the last commit
+		long end = next.get();
+		long deadline = System.nanoTime() + 1_000_000_000L;
+		while (durable < end && System.nanoTime() < deadline) {
+			commit();
+		}
+		closed = true;
+		flusher.interrupt();
+		channel.close();
+	}
+
+	// Reads the durable records of a ledger file front to back and totals them per strategy.
+	public static long[] totalsInCents(Path file) throws IOException {
+		try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+			MappedByteBuffer head = in.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+			head.order(ByteOrder.LITTLE_ENDIAN);
+			if (head.getLong(0) != MAGIC) {
+				throw new IOException(file + " is not a payment ledger");
+			}
+			long count = head.getLong(8);
+			long[] totals = new long[STRATEGIES.length + 1];
+			for (long done = 0; done < count; ) {
+				int n = (int) Math.min(RECORDS_PER_SEGMENT, count - done);
+				MappedByteBuffer buf = in.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + done * RECORD_SIZE,
+						(long) n * RECORD_SIZE);
+				buf.order(ByteOrder.LITTLE_ENDIAN);
+				for (int i = 0, at = 0; i < n; i++, at += RECORD_SIZE) {
+					int strategy = buf.getInt(at + 24);
+					totals[strategy >= 0 && strategy < STRATEGIES.length ? strategy : STRATEGIES.length] += buf.getLong(at + 8);
+				}
+				done += n;
+			}
+			return totals;
+		}
+	}
+}
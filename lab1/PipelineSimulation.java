@@ -0,0 +1,181 @@
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+// Concurrent mode: every staff role runs as its own worker thread and visitors
+// are handed from stage to stage through bounded VisitorQueues.
+public class PipelineSimulation {
+
+	// passed down the pipeline once all producers are done
+	private static final Visitor DONE = new Visitor(false, false);
+
+	abstract static class Stage implements Runnable {
+
+		final String role;
+		PipelineSimulation pipeline;
+		int index;
+		// moved to the stream of each visitor served, so the draws do not
+		// depend on the order in which producers hand visitors over
+		final RandomSource.Keyed rand = new RandomSource.Keyed();
+
+		Stage(String role) {
+			this.role = role;
+		}
+
+		abstract boolean accepts(Visitor v);
+
+		abstract void serve(Visitor v);
+
+		@Override
+		public void run() {
+			VisitorQueue in = pipeline.queues[index];
+			RandomSource.bind(rand);
+			try {
+				while (true) {
+					Visitor v = in.take();
+					if (v == DONE) {
+						pipeline.forward(index + 1, v);
+						return;
+					}
+					rand.setKey(RandomSource.key(v.randomKey, 1 + index));
+					serve(v);
+					pipeline.forward(index + 1, v);
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	private final Stage[] stages;
+	private final VisitorQueue[] queues;
+
+	private final LongAdder completed = new LongAdder();
+	private final LongAdder totalLatency = new LongAdder();
+	private final AtomicLong maxLatency = new AtomicLong();
+
+	private final long seed;
+
+	public PipelineSimulation(long seed, int queueCapacity) {
+		this.seed = seed;
+		ReceptionStaff rs = new ReceptionStaff("Steve");
+		CleanerStaff cs = new CleanerStaff("John");
+		BaggagePorterSt bg = new BaggagePorterSt("Daniil");
+		Table table = new Table();
+		Chev chev = new Chev("Boris");
+		Cook cook = new Cook("Abdul");
+		Barman barman = new Barman("Yurii");
+		Cashier cashier = new Cashier("Lena");
+		Waiter waiter = new Waiter("Maria");
+
+		stages = new Stage[] {
+			new Stage("reception") {
+				boolean accepts(Visitor v) { return v.getTiredState(); }
+				void serve(Visitor v) {
+					v.room = new Room();
+					rs.assignRoom(v.room, v);
+				}
+			},
+			new Stage("cleaning") {
+				boolean accepts(Visitor v) { return v.getTiredState(); }
+				void serve(Visitor v) { cs.setCleaned(true); }
+			},
+			new Stage("baggage") {
+				boolean accepts(Visitor v) { return v.getTiredState(); }
+				void serve(Visitor v) { bg.moveBaggage(v.room, v.b); }
+			},
+			new Stage("kitchen") {
+				boolean accepts(Visitor v) { return v.getHungryState(); }
+				void serve(Visitor v) {
+					table.occupy(v);
+					chev.setNation();
+					cook.servFood(v);
+				}
+			},
+			new Stage("bar") {
+				boolean accepts(Visitor v) { return v.getHungryState(); }
+				void serve(Visitor v) { barman.servDrink(v); }
+			},
+			new Stage("cashier") {
+				boolean accepts(Visitor v) { return v.getHungryState(); }
+				void serve(Visitor v) { cashier.payment(); }
+			},
+			new Stage("waiter") {
+				boolean accepts(Visitor v) { return v.getHungryState(); }
+				void serve(Visitor v) { waiter.service(); }
+			}
+		};
+
+		queues = new VisitorQueue[stages.length];
+		for (int i = 0; i < stages.length; i++) {
+			queues[i] = new VisitorQueue(queueCapacity);
+			stages[i].pipeline = this;
+			stages[i].index = i;
+		}
+	}
+
+	// Sends v to the first stage from 'from' on that handles it. The DONE marker
+	// visits every stage so each worker shuts down after its queue is drained.
+	private void forward(int from, Visitor v) throws InterruptedException {
+		for (int i = from; i < stages.length; i++) {
+			if (v == DONE || stages[i].accepts(v)) {
+				queues[i].put(v);
+				return;
+			}
+		}
+		if (v != DONE) {
+			long latency = System.nanoTime() - v.enteredAt;
+			completed.increment();
+			totalLatency.add(latency);
+			maxLatency.accumulateAndGet(latency, Math::max);
+		}
+	}
+
+	// Runs 'producers' arrival threads, each feeding visitorsPerProducer visitors.
+	public void run(int producers, long visitorsPerProducer) throws InterruptedException {
+		Thread[] workers = new Thread[stages.length];
+		for (int i = 0; i < stages.length; i++) {
+			workers[i] = new Thread(stages[i], stages[i].role);
+			workers[i].start();
+		}
+
+		Thread[] arrivals = new Thread[producers];
+		for (int p = 0; p < producers; p++) {
+			int producer = p;
+			arrivals[p] = new Thread(() -> {
+				// visitor number n of producer p always gets the same key
+				RandomSource.Keyed rand = new RandomSource.Keyed();
+				try {
+					for (long n = 0; n < visitorsPerProducer; n++) {
+						long key = RandomSource.key(seed, producer * visitorsPerProducer + n);
+						rand.setKey(RandomSource.key(key, 0));
+						Visitor v = Simulation.generateVisitor(rand);
+						v.randomKey = key;
+						v.enteredAt = System.nanoTime();
+						forward(0, v);
+					}
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}, "arrivals-" + p);
+			arrivals[p].start();
+		}
+
+		long start = System.nanoTime();
+		for (Thread t : arrivals) {
+			t.join();
+		}
+		forward(0, DONE);
+		for (Thread t : workers) {
+			t.join();
+		}
+		long elapsed = System.nanoTime() - start;
+
+		long done = completed.sum();
+		System.out.println("Pipeline handled " + done + " visitors in " + elapsed / 1_000_000 + " ms ("
+				+ (long) (done * 1e9 / Math.max(1, elapsed)) + " visitors/s)");
+		if (done > 0) {
+			System.out.println("End-to-end latency: avg " + totalLatency.sum() / done / 1000
+					+ " us, max " + maxLatency.get() / 1000 + " us");
+		}
+	}
+}
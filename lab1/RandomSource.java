@@ -0,0 +1,77 @@
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.random.RandomGenerator;
+
+// Central source of randomness. Every stream is derived from one root seed
+// and a stream number, so a run can be reproduced by fixing the seed and
+// giving each worker its own numbered stream. Staff use current(), which
+// returns the calling thread's stream and never allocates after the first call.
+public class RandomSource {
+
+	// A stream that can be moved to another key without allocating, for work
+	// whose draws must follow the visitor rather than the thread serving it.
+	// Same SplitMix64 generator as SplittableRandom: a Keyed set to key(seed, id)
+	// gives the same longs as stream(seed, id).
+	public static final class Keyed implements RandomGenerator {
+
+		private long state;
+
+		public void setKey(long key) {
+			state = key;
+		}
+
+		@Override
+		public long nextLong() {
+			return mix64(state += GOLDEN_GAMMA);
+		}
+	}
+
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	private static volatile long rootSeed = System.nanoTime();
+	private static final AtomicLong nextStream = new AtomicLong();
+	private static final ThreadLocal<RandomGenerator> current =
+			ThreadLocal.withInitial(() -> stream(nextStream.getAndIncrement()));
+
+	// Streams created afterwards (and threads that have not drawn yet) use the new seed.
+	public static void setSeed(long seed) {
+		rootSeed = seed;
+		nextStream.set(0);
+	}
+
+	public static long getSeed() {
+		return rootSeed;
+	}
+
+	// Independent stream number 'id' of the current root seed.
+	public static SplittableRandom stream(long id) {
+		return stream(rootSeed, id);
+	}
+
+	// Stream 'id' of the given root seed, without touching the shared seed, so
+	// independent simulations can be set up on many threads at once.
+	public static SplittableRandom stream(long seed, long id) {
+		return new SplittableRandom(key(seed, id));
+	}
+
+	// Seed of stream 'id' of the given root seed, for Keyed.setKey. Keys nest:
+	// key(key(seed, visitor), stage) is a stream of its own for every pair.
+	public static long key(long seed, long id) {
+		return mix64(seed + mix64(id));
+	}
+
+	// Makes r the stream returned by current() on this thread.
+	public static void bind(RandomGenerator r) {
+		current.set(r);
+	}
+
+	public static RandomGenerator current() {
+		return current.get();
+	}
+
+	private static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+}
@@ -6,8 +6,44 @@ public class ReceptionStaff extends HotelStaff {
 	}
 	
 	public void assignRoom(Room r, Visitor v) {
+		long start = StageLatency.start();
 		r.setOccupied(true);
 		r.setVisitor(v);
-		System.out.println("The room was assigned to visitor with id "+ v.id.getId());
+		StateLog.record(StateLog.ROOM_ASSIGNED, v, r.getNumber(), 0);
+		EventLog.log("The room was assigned to visitor with id {}", v.getId());
+		StageLatency.record(StageLatency.Stage.ASSIGN_ROOM, start);
+	}
+
+	// Takes a free room from the hotel, or returns null when it is fully booked.
+	public Room assignRoom(Hotel h, Visitor v) {
+		Room r = h.getRooms().allocate();
+		if (r == null) {
+			EventLog.log("The hotel is fully booked, visitor with id {} was turned away", v.getId());
+			return null;
+		}
+		assignRoom(r, v);
+		v.room = r;
+		return r;
+	}
+
+	// The visitor leaves without the room going back to the hotel; it stays
+	// taken until Housekeeping has cleaned it.
+	public Room vacate(Visitor v) {
+		Room r = v.room;
+		r.setVisitor(null);
+		r.setBaggage(null);
+		StateLog.record(StateLog.ROOM_RELEASED, v, r.getNumber(), 0);
+		EventLog.log("The visitor with id {} left room {}", v.getId(), r.getNumber());
+		v.room = null;
+		return r;
+	}
+
+	// The record is written before the room goes back, so another visitor's
+	// ROOM_ASSIGNED for the same room can never precede this ROOM_RELEASED.
+	public void checkOut(Hotel h, Visitor v) {
+		StateLog.record(StateLog.ROOM_RELEASED, v, v.room.getNumber(), 0);
+		EventLog.log("The visitor with id {} left room {}", v.getId(), v.room.getNumber());
+		h.getRooms().release(v.room);
+		v.room = null;
 	}
 }
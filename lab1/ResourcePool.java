@@ -0,0 +1,48 @@
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+// Fixed set of shared resources (staff members, tables, ...). A caller blocks
+// in acquire() until one is free, which models limited capacity.
+public class ResourcePool<T> {
+
+	private final BlockingQueue<T> free;
+
+	public ResourcePool(int capacity) {
+		free = new ArrayBlockingQueue<>(capacity);
+	}
+
+	public void add(T resource) {
+		free.add(resource);
+	}
+
+	public T acquire() throws InterruptedException {
+		return free.take();
+	}
+
+	// For cleanup paths that must not give up: waits through interrupts and
+	// restores the thread's interrupt status afterwards.
+	public T acquireUninterruptibly() {
+		boolean interrupted = false;
+		try {
+			while (true) {
+				try {
+					return free.take();
+				} catch (InterruptedException e) {
+					interrupted = true;
+				}
+			}
+		} finally {
+			if (interrupted) {
+				Thread.currentThread().interrupt();
+			}
+		}
+	}
+
+	public void release(T resource) {
+		free.add(resource);
+	}
+
+	public int available() {
+		return free.size();
+	}
+}
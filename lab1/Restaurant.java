@@ -0,0 +1,262 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+// Restaurant with tables of different sizes, several waiters and a seating
+// queue. An arriving party gets the smallest free table it fits at, which
+// keeps large tables for large parties. When a table frees up it goes to the
+// largest waiting party that fits, so each table turn seats as many diners
+// as possible; parties that have waited longer than MAX_WAIT go first so
+// small groups are not starved. A waiter looks after at most
+// TABLES_PER_WAITER tables, so a party is only seated when a table and a
+// waiter are both free; with too few waiters tables stand empty while
+// parties wait. A waiter also brings one bill at a time, taking SERVICE_TIME
+// each, so a party that has finished eating may wait for its waiter before
+// it can pay and free the table.
+public class Restaurant {
+
+	static final double MAX_WAIT = 30.0;
+	static final int TABLES_PER_WAITER = 4;
+	static final double SERVICE_TIME = 5.0;
+
+	private final Table[] tables;
+	private Waiter[] waiters;
+	private int[] waiterLoad;
+	// when each waiter is done with the bills already asked for
+	private double[] waiterFreeAt;
+	private final List<Party> waiting = new ArrayList<>();
+
+	private long parties = 0;
+	private long diners = 0;
+	private long rejected = 0;
+	private double totalWait = 0;
+	private final LatencyHistogram waitSeconds = new LatencyHistogram();
+	private final LatencyHistogram billWaitSeconds = new LatencyHistogram();
+
+	public Restaurant(int[] tableSeats, int waiterCount) {
+		tables = new Table[tableSeats.length];
+		for (int i = 0; i < tables.length; i++) {
+			tables[i] = new Table(tableSeats[i]);
+		}
+		Arrays.sort(tables, Comparator.comparingInt(Table::getSeats));
+		for (int i = 0; i < tables.length; i++) {
+			tables[i].number = i;
+		}
+
+		waiters = new Waiter[waiterCount];
+		for (int i = 0; i < waiterCount; i++) {
+			waiters[i] = new Waiter("Maria-" + i);
+		}
+		waiterLoad = new int[waiterCount];
+		waiterFreeAt = new double[waiterCount];
+	}
+
+	private Restaurant(Table[] tables, Waiter[] waiters, int[] waiterLoad, double[] waiterFreeAt) {
+		this.tables = tables;
+		this.waiters = waiters;
+		this.waiterLoad = waiterLoad;
+		this.waiterFreeAt = waiterFreeAt;
+	}
+
+	// Same tables, waiters and statistics, but no parties: tables keep their
+	// state and the fork that owns the copy puts the parties back.
+	Restaurant copy() {
+		Table[] t = new Table[tables.length];
+		for (int i = 0; i < t.length; i++) {
+			t[i] = tables[i].copy();
+		}
+		Waiter[] w = new Waiter[waiters.length];
+		for (int i = 0; i < w.length; i++) {
+			w[i] = new Waiter(waiters[i].getName());
+		}
+		Restaurant r = new Restaurant(t, w, waiterLoad.clone(), waiterFreeAt.clone());
+		r.parties = parties;
+		r.diners = diners;
+		r.rejected = rejected;
+		r.totalWait = totalWait;
+		r.waitSeconds.merge(waitSeconds);
+		r.billWaitSeconds.merge(billWaitSeconds);
+		return r;
+	}
+
+	// mean seating wait in minutes
+	public double getMeanWait() {
+		return parties == 0 ? 0.0 : totalWait / parties;
+	}
+
+	// seating wait at the given percentile (0-100), in minutes
+	public double getWaitAt(double percentile) {
+		return waitSeconds.valueAt(percentile) / 60.0;
+	}
+
+	// mean time a party that has finished eating waits for its waiter, in minutes
+	public double getMeanBillWait() {
+		return billWaitSeconds.getMean() / 60.0;
+	}
+
+	public long getDiners() {
+		return diners;
+	}
+
+	public int getTableCount() {
+		return tables.length;
+	}
+
+	public int getWaitingCount() {
+		return waiting.size();
+	}
+
+	// An extra waiter joins the shift with no tables yet.
+	public void addWaiter(Waiter w) {
+		waiters = Arrays.copyOf(waiters, waiters.length + 1);
+		waiters[waiters.length - 1] = w;
+		waiterLoad = Arrays.copyOf(waiterLoad, waiterLoad.length + 1);
+		waiterFreeAt = Arrays.copyOf(waiterFreeAt, waiterFreeAt.length + 1);
+	}
+
+	Table table(int i) {
+		return tables[i];
+	}
+
+	Waiter waiter(int i) {
+		return waiters[i];
+	}
+
+	List<Party> getWaiting() {
+		return waiting;
+	}
+
+	int indexOf(Table t) {
+		for (int i = 0; i < tables.length; i++) {
+			if (tables[i] == t) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	// Parties seated by this call are added to 'seated'.
+	public void arrive(Party p, double now, List<Party> seated) {
+		if (p.size > tables[tables.length - 1].getSeats()) {
+			rejected++;
+			EventLog.log("No table is large enough for a party of {}", p.size);
+			return;
+		}
+		int w = freeWaiter();
+		for (Table t : tables) {
+			if (w < 0) {
+				break;
+			}
+			if (!t.getTableState() && t.getSeats() >= p.size) {
+				seat(p, t, w, now);
+				seated.add(p);
+				return;
+			}
+		}
+		waiting.add(p);
+	}
+
+	// The party has finished eating and asks its waiter for the bill; returns
+	// the time the waiter has settled it, after the bills asked for earlier.
+	public double askForBill(Party p, double now) {
+		int w = indexOf(p.waiter);
+		double start = Math.max(now, waiterFreeAt[w]);
+		waiterFreeAt[w] = start + SERVICE_TIME;
+		billWaitSeconds.record((long) ((start - now) * 60));
+		return waiterFreeAt[w];
+	}
+
+	// Frees the party's table and seats whoever can use it next.
+	public void leave(Party p, double now, List<Party> seated) {
+		p.table.release();
+		waiterLoad[indexOf(p.waiter)]--;
+		seatWaiting(now, seated);
+	}
+
+	private void seatWaiting(double now, List<Party> seated) {
+		for (Table t : tables) {
+			if (waiting.isEmpty()) {
+				return;
+			}
+			int waiter = freeWaiter();
+			if (waiter < 0) {
+				return;
+			}
+			if (t.getTableState()) {
+				continue;
+			}
+			int pick = -1;
+			for (int i = 0; i < waiting.size(); i++) {
+				Party w = waiting.get(i);
+				if (w.size > t.getSeats()) {
+					continue;
+				}
+				if (now - w.arrivedAt >= MAX_WAIT) {
+					pick = i;
+					break;
+				}
+				if (pick < 0 || w.size > waiting.get(pick).size) {
+					pick = i;
+				}
+			}
+			if (pick >= 0) {
+				Party p = waiting.remove(pick);
+				seat(p, t, waiter, now);
+				seated.add(p);
+			}
+		}
+	}
+
+	// The least loaded waiter, or -1 if every waiter already has TABLES_PER_WAITER tables.
+	private int freeWaiter() {
+		int w = -1;
+		for (int i = 0; i < waiters.length; i++) {
+			if (waiterLoad[i] < TABLES_PER_WAITER && (w < 0 || waiterLoad[i] < waiterLoad[w])) {
+				w = i;
+			}
+		}
+		return w;
+	}
+
+	private void seat(Party p, Table t, int w, double now) {
+		waiterLoad[w]++;
+		p.table = t;
+		p.waiter = waiters[w];
+		p.seatedAt = now;
+		t.occupy(p.visitor);
+
+		double wait = now - p.arrivedAt;
+		parties++;
+		diners += p.size;
+		totalWait += wait;
+		waitSeconds.record((long) (wait * 60));
+	}
+
+	int indexOf(Waiter w) {
+		for (int i = 0; i < waiters.length; i++) {
+			if (waiters[i] == w) {
+				return i;
+			}
+		}
+		return -1;
+	}
+
+	public void printReport(double minutes) {
+		long turns = 0;
+		for (Table t : tables) {
+			turns += t.getTurns();
+		}
+		double hours = minutes / 60.0;
+		System.out.println("Restaurant: " + tables.length + " tables, " + waiters.length + " waiters of up to "
+				+ TABLES_PER_WAITER + " tables each");
+		System.out.printf("  seated %d parties (%d diners), %.1f diners/hour, %.2f turns per table-hour%n",
+				parties, diners, diners / hours, turns / hours / tables.length);
+		System.out.printf("  seating wait: mean %.1f min, p50 %.1f min, p99 %.1f min, max %.1f min%n",
+				parties == 0 ? 0.0 : totalWait / parties, waitSeconds.valueAt(50) / 60.0,
+				waitSeconds.valueAt(99) / 60.0, waitSeconds.getMax() / 60.0);
+		System.out.printf("  wait for the bill: mean %.1f min, p99 %.1f min, max %.1f min%n",
+				billWaitSeconds.getMean() / 60.0, billWaitSeconds.valueAt(99) / 60.0, billWaitSeconds.getMax() / 60.0);
+		System.out.println("  still waiting: " + waiting.size() + ", too large for any table: " + rejected);
+	}
+}
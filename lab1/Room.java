@@ -4,15 +4,25 @@ public class Room {
 	Baggage baggage;
 	private Visitor visitor;
 	private boolean occupied;
+	private final int number;
 
 	
 	public Room() {
+		this(-1);
+	}
+
+	public Room(int number) {
+		this.number = number;
 		this.occupied = false;
 		this.visitor = null;
 		this.baggage = null;
 		
 	}
 
+	public int getNumber() {
+		return number;
+	}
+
 	public boolean isOccupied() {
 		return occupied;
 	}
@@ -0,0 +1,173 @@
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+// Pool of hotel rooms. Free rooms are tracked in a bitset (one bit per room)
+// with a summary bitset on top (one bit per 64-room word that may still have
+// a free room), so a claim touches a couple of words whatever the hotel size.
+// Claims and releases are lock-free and can come from any thread.
+public class RoomInventory {
+
+	private final Room[] rooms;
+	private final AtomicLongArray free;
+	private final AtomicLongArray summary;
+	private final AtomicInteger available;
+
+	public RoomInventory(int count) {
+		this(count, allFree(count));
+	}
+
+	// Inventory whose free rooms are the set bits of freeWords, as returned by
+	// freeWords(). The other rooms are marked occupied; whoever restores the
+	// state fills in their visitors.
+	RoomInventory(int count, long[] freeWords) {
+		rooms = new Room[count];
+		for (int i = 0; i < count; i++) {
+			rooms[i] = new Room(i);
+		}
+
+		int words = freeWords.length;
+		free = new AtomicLongArray(freeWords);
+		summary = new AtomicLongArray((words + 63) >>> 6);
+		int freeCount = 0;
+		for (int w = 0; w < words; w++) {
+			long word = freeWords[w];
+			if (word != 0) {
+				summary.set(w >>> 6, summary.get(w >>> 6) | (1L << w));
+			}
+			freeCount += Long.bitCount(word);
+			for (long taken = ~word; taken != 0; taken &= taken - 1) {
+				int number = (w << 6) + Long.numberOfTrailingZeros(taken);
+				if (number >= count) {
+					break;
+				}
+				rooms[number].setOccupied(true);
+			}
+		}
+		available = new AtomicInteger(freeCount);
+	}
+
+	private static long[] allFree(int count) {
+		long[] words = new long[(count + 63) >>> 6];
+		for (int w = 0; w < words.length; w++) {
+			int bits = Math.min(64, count - (w << 6));
+			words[w] = bits == 64 ? -1L : (1L << bits) - 1;
+		}
+		return words;
+	}
+
+	// Copy of the free-room bits, one bit per room. Only consistent while no
+	// other thread is claiming or releasing rooms.
+	long[] freeWords() {
+		long[] words = new long[free.length()];
+		for (int w = 0; w < words.length; w++) {
+			words[w] = free.get(w);
+		}
+		return words;
+	}
+
+	public int size() {
+		return rooms.length;
+	}
+
+	public int available() {
+		return available.get();
+	}
+
+	public boolean isFullyBooked() {
+		return available.get() == 0;
+	}
+
+	public Room room(int number) {
+		return rooms[number];
+	}
+
+	// Returns a free room, or null when the hotel is fully booked.
+	public Room allocate() {
+		int number = claim();
+		return number < 0 ? null : rooms[number];
+	}
+
+	// Gives back a room taken with allocate(). Releasing a room that is already
+	// free would make claim() count on a room no bit stands for, so it throws.
+	public void release(Room r) {
+		if (r == null) {
+			throw new IllegalArgumentException("No room to release");
+		}
+		int number = r.getNumber();
+		int w = number >>> 6;
+		long bit = 1L << number;
+		if ((free.get(w) & bit) != 0) {
+			throw new IllegalStateException("Room " + number + " is already free");
+		}
+		// clear the room before its bit is set, after which it can be claimed again
+		r.setOccupied(false);
+		r.setVisitor(null);
+		r.setBaggage(null);
+
+		long word;
+		do {
+			word = free.get(w);
+			if ((word & bit) != 0) {
+				throw new IllegalStateException("Room " + number + " is already free");
+			}
+		} while (!free.compareAndSet(w, word, word | bit));
+		markWord(w);
+		available.incrementAndGet();
+	}
+
+	private int claim() {
+		// reserve a room first, so the search below is guaranteed to find one
+		int a;
+		do {
+			a = available.get();
+			if (a == 0) {
+				return -1;
+			}
+		} while (!available.compareAndSet(a, a - 1));
+
+		while (true) {
+			for (int s = 0; s < summary.length(); s++) {
+				long candidates = summary.get(s);
+				while (candidates != 0) {
+					int w = (s << 6) + Long.numberOfTrailingZeros(candidates);
+					long word = free.get(w);
+					if (word == 0) {
+						unmarkWord(w);
+						candidates &= candidates - 1;
+						continue;
+					}
+					long bit = word & -word;
+					if (free.compareAndSet(w, word, word & ~bit)) {
+						if ((word & ~bit) == 0) {
+							unmarkWord(w);
+						}
+						return (w << 6) + Long.numberOfTrailingZeros(bit);
+					}
+				}
+			}
+		}
+	}
+
+	private void markWord(int w) {
+		int s = w >>> 6;
+		long bit = 1L << w;
+		long sw;
+		do {
+			sw = summary.get(s);
+		} while ((sw & bit) == 0 && !summary.compareAndSet(s, sw, sw | bit));
+	}
+
+	// A release may race with clearing the summary bit, so re-check the word
+	// afterwards and restore the bit if a room became free again.
+	private void unmarkWord(int w) {
+		int s = w >>> 6;
+		long bit = 1L << w;
+		long sw;
+		do {
+			sw = summary.get(s);
+		} while ((sw & bit) != 0 && !summary.compareAndSet(s, sw, sw & ~bit));
+		if (free.get(w) != 0) {
+			markWord(w);
+		}
+	}
+}
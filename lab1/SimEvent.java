@@ -0,0 +1,38 @@
+
+public class SimEvent implements Comparable<SimEvent> {
+
+	public enum Type {
+		ARRIVAL, CHECK_IN, MEAL, PAYMENT, CHECK_OUT, ORDER_READY, CLEANING_DONE, CHECK_IN_TIMEOUT, BILL_SETTLED
+	}
+
+	final double time;
+	final long sequence;
+	final Type type;
+	final Visitor visitor;
+
+	public SimEvent(double time, long sequence, Type type, Visitor visitor) {
+		this.time = time;
+		this.sequence = sequence;
+		this.type = type;
+		this.visitor = visitor;
+	}
+
+	public double getTime() {
+		return time;
+	}
+
+	public Type getType() {
+		return type;
+	}
+
+	public Visitor getVisitor() {
+		return visitor;
+	}
+
+	// events at the same instant are handled in the order they were scheduled
+	@Override
+	public int compareTo(SimEvent other) {
+		int c = Double.compare(time, other.time);
+		return c != 0 ? c : Long.compare(sequence, other.sequence);
+	}
+}
@@ -0,0 +1,257 @@
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Frozen state of an EventSimulation at one instant, for what-if branching.
+// Only the live state is copied: the pending events, the visitors they refer
+// to (as rows of primitive arrays, like VisitorStore), the free-room bits and
+// copies of the restaurant, kitchen and housekeeping. A snapshot is never modified, so any number of
+// forks share it. A fork reads its pending events straight from the snapshot
+// and only turns a stored visitor back into objects when that visitor is
+// first touched, so forking does not depend on how many visitors are in
+// flight.
+public class SimSnapshot {
+
+	static final byte HUNGRY = VisitorStore.HUNGRY;
+	static final byte TIRED = VisitorStore.TIRED;
+	static final byte PAID = VisitorStore.PAID;
+	static final byte BAG_MOVED = 8;
+
+	private static final SimEvent.Type[] TYPES = SimEvent.Type.values();
+
+	final long seed;
+	final double clock;
+	final long sequence;
+	final double meanArrivalGap;
+	final long processed;
+	final long arrivals;
+	final long checkIns;
+	final long meals;
+	final long payments;
+	final long turnedAway;
+	final double roomMinutes;
+	final int hungryOnly;
+	final int tiredOnly;
+
+	final int roomCount;
+	final long[] freeRooms;
+	final Restaurant restaurant;
+	final Kitchen kitchen;
+	final Housekeeping housekeeping;
+
+	// pending events, sorted by time and then sequence
+	private final double[] eventTime;
+	private final long[] eventSequence;
+	private final byte[] eventType;
+	private final int[] eventVisitor;
+
+	// one row per visitor referred to by an event or the seating queue
+	private final long[] ids;
+	private final byte[] flags;
+	private final String[] bags;
+	private final long[] enteredAt;
+	private final int[] rooms;
+	private final int[] partySize;
+	private final double[] partyArrivedAt;
+	private final double[] partySeatedAt;
+	private final int[] partyTable;
+	private final int[] partyWaiter;
+	private final int[] partyCuisine;
+	private final int[] partyDish;
+	private final double[] partyOrderedAt;
+	private final double[] partyReadyAt;
+	private final int[] partyCook;
+
+	// rows of the parties waiting for a table, in queue order
+	final int[] waiting;
+	// rows of the parties whose order is not started yet, in ticket order
+	final int[] tickets;
+	// rows of the visitors waiting for a clean room, and since when
+	final int[] blocked;
+	final double[] blockedSince;
+
+	SimSnapshot(EventSimulation sim, long seed, List<SimEvent> pending) {
+		this.seed = seed;
+		clock = sim.getClock();
+		sequence = sim.sequence;
+		meanArrivalGap = sim.getMeanArrivalGap();
+		processed = sim.getProcessed();
+		arrivals = sim.getArrivals();
+		checkIns = sim.checkIns;
+		meals = sim.meals;
+		payments = sim.payments;
+		turnedAway = sim.turnedAway;
+		roomMinutes = sim.roomMinutes;
+		hungryOnly = sim.getHungryOnly();
+		tiredOnly = sim.getTiredOnly();
+
+		RoomInventory inventory = sim.getHotel().getRooms();
+		roomCount = inventory.size();
+		freeRooms = inventory.freeWords();
+		Restaurant r = sim.getRestaurant();
+		restaurant = r.copy();
+		Kitchen k = sim.getKitchen();
+		kitchen = k == null ? null : k.copy();
+		Housekeeping h = sim.getHousekeeping();
+		housekeeping = h == null ? null : h.copy();
+
+		Map<Visitor, Integer> rows = new IdentityHashMap<>();
+		List<Visitor> visitors = new ArrayList<>();
+		int n = pending.size();
+		eventTime = new double[n];
+		eventSequence = new long[n];
+		eventType = new byte[n];
+		eventVisitor = new int[n];
+		for (int i = 0; i < n; i++) {
+			SimEvent e = pending.get(i);
+			eventTime[i] = e.time;
+			eventSequence[i] = e.sequence;
+			eventType[i] = (byte) e.type.ordinal();
+			eventVisitor[i] = row(e.visitor, rows, visitors);
+		}
+		List<Party> queue = r.getWaiting();
+		waiting = new int[queue.size()];
+		for (int i = 0; i < waiting.length; i++) {
+			waiting[i] = row(queue.get(i).visitor, rows, visitors);
+		}
+		List<Party> orders = k == null ? new ArrayList<>() : k.getTickets();
+		tickets = new int[orders.size()];
+		for (int i = 0; i < tickets.length; i++) {
+			tickets[i] = row(orders.get(i).visitor, rows, visitors);
+		}
+		blocked = new int[h == null ? 0 : h.getBlockedCount()];
+		blockedSince = new double[blocked.length];
+		for (int i = 0; i < blocked.length; i++) {
+			blocked[i] = row(h.getBlocked(i), rows, visitors);
+			blockedSince[i] = h.getBlockedSince(i);
+		}
+
+		int count = visitors.size();
+		ids = new long[count];
+		flags = new byte[count];
+		bags = new String[count];
+		enteredAt = new long[count];
+		rooms = new int[count];
+		partySize = new int[count];
+		partyArrivedAt = new double[count];
+		partySeatedAt = new double[count];
+		partyTable = new int[count];
+		partyWaiter = new int[count];
+		partyCuisine = new int[count];
+		partyDish = new int[count];
+		partyOrderedAt = new double[count];
+		partyReadyAt = new double[count];
+		partyCook = new int[count];
+		for (int i = 0; i < count; i++) {
+			Visitor v = visitors.get(i);
+			ids[i] = v.getId().getId();
+			flags[i] = (byte) ((v.getHungryState() ? HUNGRY : 0) | (v.getTiredState() ? TIRED : 0)
+					| (v.paymentState ? PAID : 0) | (v.b != null && v.b.isServiced() ? BAG_MOVED : 0));
+			bags[i] = v.b == null ? null : v.b.getbType();
+			enteredAt[i] = v.enteredAt;
+			rooms[i] = v.room == null ? VisitorStore.NO_ROOM : v.room.getNumber();
+			Party p = v.party;
+			partyTable[i] = -1;
+			partyWaiter[i] = -1;
+			partyCook[i] = -1;
+			if (p != null) {
+				partySize[i] = p.size;
+				partyArrivedAt[i] = p.arrivedAt;
+				partySeatedAt[i] = p.seatedAt;
+				partyCuisine[i] = p.cuisine;
+				partyDish[i] = p.dish;
+				partyOrderedAt[i] = p.orderedAt;
+				partyReadyAt[i] = p.readyAt;
+				if (p.cook != null) {
+					partyCook[i] = k.indexOf(p.cook);
+				}
+				if (p.table != null) {
+					partyTable[i] = r.indexOf(p.table);
+					partyWaiter[i] = r.indexOf(p.waiter);
+				}
+			}
+		}
+	}
+
+	private static int row(Visitor v, Map<Visitor, Integer> rows, List<Visitor> visitors) {
+		if (v == null) {
+			return -1;
+		}
+		Integer row = rows.get(v);
+		if (row == null) {
+			row = visitors.size();
+			rows.put(v, row);
+			visitors.add(v);
+		}
+		return row;
+	}
+
+	// A new simulation that carries on from this snapshot. Forks are
+	// independent of each other and of the simulation the snapshot came from,
+	// and can run on different threads.
+	public EventSimulation fork() {
+		return new EventSimulation(this);
+	}
+
+	public double getClock() {
+		return clock;
+	}
+
+	public int eventCount() {
+		return eventTime.length;
+	}
+
+	public int visitorCount() {
+		return ids.length;
+	}
+
+	int eventVisitor(int i) {
+		return eventVisitor[i];
+	}
+
+	SimEvent event(int i, Visitor v) {
+		return new SimEvent(eventTime[i], eventSequence[i], TYPES[eventType[i]], v);
+	}
+
+	// Rebuilds visitor 'row' inside a fork, putting it back in its room and at its table.
+	Visitor restore(int row, RoomInventory inventory, Restaurant r, Kitchen k) {
+		byte f = flags[row];
+		Baggage b = null;
+		if (bags[row] != null) {
+			b = new Baggage(bags[row]);
+			if ((f & BAG_MOVED) != 0) {
+				b.service();
+			}
+		}
+		Visitor v = new Visitor(new Id(ids[row]), b, (f & HUNGRY) != 0, (f & TIRED) != 0);
+		v.paymentState = (f & PAID) != 0;
+		v.enteredAt = enteredAt[row];
+		if (rooms[row] != VisitorStore.NO_ROOM) {
+			Room room = inventory.room(rooms[row]);
+			room.setVisitor(v);
+			if (b != null && b.isServiced()) {
+				room.setBaggage(b);
+			}
+			v.room = room;
+		}
+		if (partySize[row] > 0) {
+			Party p = new Party(v, partySize[row], partyArrivedAt[row]);
+			p.cuisine = partyCuisine[row];
+			p.dish = partyDish[row];
+			p.orderedAt = partyOrderedAt[row];
+			p.readyAt = partyReadyAt[row];
+			if (partyCook[row] >= 0) {
+				p.cook = k.cook(partyCook[row]);
+			}
+			if (partyTable[row] >= 0) {
+				p.table = r.table(partyTable[row]);
+				p.waiter = r.waiter(partyWaiter[row]);
+				p.seatedAt = partySeatedAt[row];
+				p.table.setVisitor(v);
+			}
+			v.party = p;
+		}
+		return v;
+	}
+}
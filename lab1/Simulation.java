@@ -1,25 +1,42 @@
-import java.util.Random;
 import java.util.concurrent.TimeUnit;
+import java.util.random.RandomGenerator;
 
 public class  Simulation {
+
+	private static Hotel hotel;
+	private static BaggagePorterSt bg;
+	private static ReceptionStaff rs;
+	private static CleanerStaff cs;
+	private static Table table;
+	private static Chev chev;
+	private static Cook cook;
+	private static Barman barman;
+	private static Cashier cashier;
+	private static Waiter waiter;
+	private static Room r;
+
+	static void setUp() {
+		hotel = new Hotel();
+		bg = new BaggagePorterSt("Daniil");
+		rs = new ReceptionStaff("Steve");
+		cs = new CleanerStaff("John");
+		table = new Table();
+		chev = new Chev("Boris");
+		cook = new Cook("Abdul");
+		barman = new Barman("Yurii");
+
+		cashier = new Cashier("Lena");
+		waiter = new Waiter("Maria");
+		r = new Room();
+	}
+
 	public static void run_simul() throws InterruptedException {
 	
-		Hotel hotel = new Hotel();
-		BaggagePorterSt bg = new BaggagePorterSt("Daniil");
-		ReceptionStaff rs = new ReceptionStaff("Steve");
-		CleanerStaff cs = new CleanerStaff("John");
-		Table table = new Table();
-		Chev chev = new Chev("Boris");
-		Cook cook = new Cook("Abdul");
-		Barman barman = new Barman("Yurii");
-
-		Cashier cashier = new Cashier("Lena");
-		Waiter waiter = new Waiter("Maria");
+		setUp();
 
 		String[] vNames = {"Alexandr", "Nick", "Patric", "Kate", "Yaroslava", "Alexei", "Sergey", "Nicolai"};
 
 		Visitor v = new Visitor(true,true);
-		Room r = new Room();
 
 		//private static generateVname(Random rand, String[] vNames){
 		//	String vName = "";
@@ -28,11 +45,11 @@ public class  Simulation {
 		//	return vName;
 		//}
 		
-		System.out.println();
+		EventLog.log("");
 		hotel.open();
-		System.out.println();
+		EventLog.log("");
 
-		System.out.println("INITIAL VISITOR ENTERED THE HOTEL");
+		EventLog.log("INITIAL VISITOR ENTERED THE HOTEL");
 
 		rs.assignRoom(r, v);
 		cs.setCleaned(true);
@@ -44,40 +61,19 @@ public class  Simulation {
 		cashier.payment();
 		waiter.service();
 
-		System.out.println();
+		EventLog.log("");
 		
 		TimeUnit.SECONDS.sleep(2);
 
 		
 
-		Random rand = new Random();
+		RandomGenerator rand = RandomSource.current();
 
 		while(true){
 			Visitor vis = generateVisitor(rand);
 
-			if (vis.getHungryState() && !vis.getTiredState()) {
-				table.occupy(v);
-				chev.setNation();
-				cook.servFood(v);
-				barman.servDrink(v);
-				cashier.payment();
-				waiter.service();
-			} else if (!vis.getHungryState() && vis.getTiredState()){
-				rs.assignRoom(r, v);
-				cs.setCleaned(true);
-				bg.moveBaggage(r, v.b);
-			} else{
-				rs.assignRoom(r, v);
-				cs.setCleaned(true);
-				bg.moveBaggage(r, v.b);
-				table.occupy(v);
-				chev.setNation();
-				cook.servFood(v);
-				barman.servDrink(v);
-				cashier.payment();
-				waiter.service();
-			}
-			System.out.println();
+			handleVisitor(vis);
+			EventLog.log("");
 			TimeUnit.SECONDS.sleep(2);
 		}
 
@@ -85,16 +81,51 @@ public class  Simulation {
 
 	}
 	
-	private static Visitor generateVisitor(Random rand){
+	// Serves one visitor with the staff created by setUp(), without any waiting.
+	static void handleVisitor(Visitor vis) {
+		if (vis.getHungryState() && !vis.getTiredState()) {
+			table.occupy(vis);
+			chev.setNation();
+			cook.servFood(vis);
+			barman.servDrink(vis);
+			cashier.payment();
+			waiter.service();
+		} else if (!vis.getHungryState() && vis.getTiredState()){
+			rs.assignRoom(r, vis);
+			cs.setCleaned(true);
+			bg.moveBaggage(r, vis.b);
+		} else{
+			rs.assignRoom(r, vis);
+			cs.setCleaned(true);
+			bg.moveBaggage(r, vis.b);
+			table.occupy(vis);
+			chev.setNation();
+			cook.servFood(vis);
+			barman.servDrink(vis);
+			cashier.payment();
+			waiter.service();
+		}
+	}
+
+	static final int HUNGRY_ONLY_PERCENT = 20;
+	static final int TIRED_ONLY_PERCENT = 30;
+
+	static Visitor generateVisitor(RandomGenerator rand){
+		return generateVisitor(rand, HUNGRY_ONLY_PERCENT, TIRED_ONLY_PERCENT);
+	}
+
+	// hungryOnly% of visitors only want a meal, tiredOnly% only want a room,
+	// the rest want both
+	static Visitor generateVisitor(RandomGenerator rand, int hungryOnly, int tiredOnly){
 		Visitor v;
-		int choise = rand.nextInt(10)+1;
+		int choise = rand.nextInt(100);
 
-		if (choise <= 2){
-			v = new Visitor(true, false);
-		}else if(choise >2 && choise <=5){
-			v = new Visitor(false, true);
+		if (choise < hungryOnly){
+			v = new Visitor(true, false, rand);
+		}else if(choise < hungryOnly + tiredOnly){
+			v = new Visitor(false, true, rand);
 		}else{
-			v = new Visitor(true, true);
+			v = new Visitor(true, true, rand);
 		}
 		return v;
 	}
@@ -2,10 +2,23 @@
 public class Staff {
 	
 	String name;
-	boolean workingState;
+	volatile boolean workingState;
 	
 	public Staff(String name) {
 		this.name = name;
 		this.workingState = false;
 	}
+
+	public String getName() {
+		return name;
+	}
+
+	// true while the staff member is on shift
+	public boolean isWorking() {
+		return workingState;
+	}
+
+	public void setWorkingState(boolean workingState) {
+		this.workingState = workingState;
+	}
 }
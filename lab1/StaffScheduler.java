@@ -0,0 +1,185 @@
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+// Spreads tasks over many staff members of one role. Every staff member runs
+// on its own thread with its own deque: it takes its tasks from the front,
+// and when it has nothing to do it steals from the back of a colleague's
+// deque, so an idle cook picks up orders queued for a busy one. Only staff
+// whose workingState is set (on shift) take tasks; the queue of someone
+// going off shift is emptied by the others.
+public class StaffScheduler<T extends Staff> {
+
+	public interface Task<T> {
+		void perform(T staff);
+	}
+
+	private static final class Job<T> {
+		final Task<T> task;
+		final long enqueuedAt;
+
+		Job(Task<T> task) {
+			this.task = task;
+			this.enqueuedAt = System.nanoTime();
+		}
+	}
+
+	private final class Worker extends Thread {
+
+		final T staff;
+		final ConcurrentLinkedDeque<Job<T>> deque = new ConcurrentLinkedDeque<>();
+		final LatencyHistogram queueWait = new LatencyHistogram();
+		long busyNanos;
+		long tasks;
+		long steals;
+		long failures;
+
+		Worker(T staff) {
+			super("staff-" + staff.getName());
+			this.staff = staff;
+			setDaemon(true);
+		}
+
+		@Override
+		public void run() {
+			int idle = 0;
+			while (!stopped) {
+				Job<T> job = staff.isWorking() ? next() : null;
+				if (job == null) {
+					idle = Math.min(idle + 1, 20);
+					LockSupport.parkNanos(1L << idle);
+					continue;
+				}
+				idle = 0;
+				long start = System.nanoTime();
+				queueWait.record(start - job.enqueuedAt);
+				try {
+					job.task.perform(staff);
+				} catch (RuntimeException e) {
+					// a failing task must not take the staff member off duty
+					failures++;
+					failed.increment();
+				} finally {
+					busyNanos += System.nanoTime() - start;
+					tasks++;
+					pending.decrement();
+				}
+			}
+		}
+
+		private Job<T> next() {
+			Job<T> job = deque.pollFirst();
+			if (job != null) {
+				return job;
+			}
+			int n = workers.size();
+			int from = ThreadLocalRandom.current().nextInt(n);
+			for (int i = 0; i < n; i++) {
+				Worker victim = workers.get((from + i) % n);
+				if (victim != this && (job = victim.deque.pollLast()) != null) {
+					steals++;
+					return job;
+				}
+			}
+			return null;
+		}
+	}
+
+	private final List<Worker> workers = new ArrayList<>();
+	private final AtomicInteger nextWorker = new AtomicInteger();
+	private final LongAdder pending = new LongAdder();
+	private final LongAdder failed = new LongAdder();
+	private volatile boolean stopped = false;
+	private long startedAt;
+
+	public StaffScheduler(List<T> staff) {
+		for (T s : staff) {
+			workers.add(new Worker(s));
+		}
+	}
+
+	public void start() {
+		startedAt = System.nanoTime();
+		for (Worker w : workers) {
+			w.start();
+		}
+	}
+
+	public void startShift(T staff) {
+		staff.setWorkingState(true);
+	}
+
+	public void endShift(T staff) {
+		staff.setWorkingState(false);
+	}
+
+	// Queues the task with the next staff member on shift, round robin.
+	public void submit(Task<T> task) {
+		int n = workers.size();
+		int start = Math.floorMod(nextWorker.getAndIncrement(), n);
+		for (int i = 0; i < n; i++) {
+			Worker w = workers.get((start + i) % n);
+			if (w.staff.isWorking()) {
+				enqueue(w, task);
+				return;
+			}
+		}
+		enqueue(workers.get(start), task);
+	}
+
+	// Queues the task with one particular staff member.
+	public void submitTo(T staff, Task<T> task) {
+		for (Worker w : workers) {
+			if (w.staff == staff) {
+				enqueue(w, task);
+				return;
+			}
+		}
+		throw new IllegalArgumentException(staff.getName() + " is not managed by this scheduler");
+	}
+
+	private void enqueue(Worker w, Task<T> task) {
+		pending.increment();
+		w.deque.offerLast(new Job<>(task));
+	}
+
+	public long getPending() {
+		return pending.sum();
+	}
+
+	// tasks that threw instead of completing
+	public long getFailures() {
+		return failed.sum();
+	}
+
+	// Waits for every queued task to finish, then stops the workers. Someone
+	// has to be on shift, otherwise queued tasks are never taken.
+	public void shutdown() throws InterruptedException {
+		while (pending.sum() > 0) {
+			Thread.sleep(1);
+		}
+		stopped = true;
+		for (Worker w : workers) {
+			w.join();
+		}
+	}
+
+	public void printReport() {
+		long elapsed = System.nanoTime() - startedAt;
+		LatencyHistogram wait = new LatencyHistogram();
+		System.out.printf("%-14s %10s %8s %8s %12s%n", "staff", "tasks", "failed", "steals", "utilization");
+		for (Worker w : workers) {
+			wait.merge(w.queueWait);
+			System.out.printf("%-14s %10d %8d %8d %11.1f%%%n", w.staff.getName(), w.tasks, w.failures, w.steals,
+					100.0 * w.busyNanos / elapsed);
+		}
+		System.out.printf("Queue wait: mean %.1f us, p50 %d us, p99 %d us, max %d us, over %d ms%n",
+				wait.getMean() / 1000, wait.valueAt(50) / 1000, wait.valueAt(99) / 1000, wait.getMax() / 1000,
+				TimeUnit.NANOSECONDS.toMillis(elapsed));
+	}
+}
@@ -0,0 +1,161 @@
+import java.util.ArrayList;
+import java.util.List;
+
+// Records how long each staff operation takes. Every thread writes to its own
+// histograms, so recording never contends; report() merges them. The
+// histograms of threads that have finished are folded into one retired set,
+// so thread-per-visitor runs do not keep a set per thread they ever started.
+// When disabled, start() returns 0 and record() does nothing. The staff
+// operations themselves take well under a microsecond once output is
+// discarded, so for large runs use a sample rate: each thread times only one
+// operation in 'rate', counted down on the thread, and skips the clock reads
+// for the others.
+public class StageLatency {
+
+	public enum Stage {
+		ASSIGN_ROOM, CLEAN_ROOM, MOVE_BAGGAGE, OCCUPY_TABLE, SERVE_FOOD, SERVE_DRINK, PAYMENT, WAITER_SERVICE
+	}
+
+	private static final Stage[] STAGES = Stage.values();
+
+	// Plain fields, read on every staff operation: set them before the
+	// threads that record are started.
+	private static boolean enabled = false;
+	private static int sampleRate = 1;
+
+	// one thread's histograms, made on first use, and its countdown to the next timed operation
+	private static final class Recorder {
+		final Thread owner = Thread.currentThread();
+		final LatencyHistogram[] histograms = new LatencyHistogram[STAGES.length];
+		int countdown = 0;
+
+		void record(Stage stage, long nanos) {
+			LatencyHistogram h = histograms[stage.ordinal()];
+			if (h == null) {
+				h = histograms[stage.ordinal()] = new LatencyHistogram();
+			}
+			h.record(nanos);
+		}
+	}
+
+	private static final List<Recorder> recorders = new ArrayList<>(); // guarded by itself
+	private static final LatencyHistogram[] retired = new LatencyHistogram[STAGES.length];
+	private static int retireAt = 16;
+	private static final ThreadLocal<Recorder> local = ThreadLocal.withInitial(StageLatency::register);
+
+	static {
+		for (int i = 0; i < retired.length; i++) {
+			retired[i] = new LatencyHistogram();
+		}
+	}
+
+	private static Recorder register() {
+		Recorder r = new Recorder();
+		synchronized (recorders) {
+			if (recorders.size() >= retireAt) {
+				retireFinished();
+				retireAt = Math.max(16, recorders.size() * 2);
+			}
+			recorders.add(r);
+		}
+		return r;
+	}
+
+	// Folds the histograms of finished threads into 'retired'. A thread seen
+	// dead by isAlive() has published everything it recorded.
+	private static void retireFinished() {
+		recorders.removeIf(r -> {
+			if (r.owner.isAlive()) {
+				return false;
+			}
+			for (int i = 0; i < retired.length; i++) {
+				if (r.histograms[i] != null) {
+					retired[i].merge(r.histograms[i]);
+				}
+			}
+			return true;
+		});
+	}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	public static void setEnabled(boolean on) {
+		enabled = on;
+	}
+
+	public static int getSampleRate() {
+		return sampleRate;
+	}
+
+	// time one operation in 'rate' (1 = every operation)
+	public static void setSampleRate(int rate) {
+		sampleRate = Math.max(1, rate);
+	}
+
+	public static long start() {
+		if (!enabled) {
+			return 0;
+		}
+		Recorder r = local.get();
+		if (--r.countdown > 0) {
+			return 0;
+		}
+		r.countdown = sampleRate;
+		return System.nanoTime();
+	}
+
+	public static void record(Stage stage, long start) {
+		if (start != 0) {
+			long elapsed = System.nanoTime() - start;
+			local.get().record(stage, elapsed);
+		}
+	}
+
+	// Call once the threads that recorded have finished.
+	public static LatencyHistogram merged(Stage stage) {
+		LatencyHistogram total = new LatencyHistogram();
+		synchronized (recorders) {
+			retireFinished();
+			total.merge(retired[stage.ordinal()]);
+			for (Recorder r : recorders) {
+				if (r.histograms[stage.ordinal()] != null) {
+					total.merge(r.histograms[stage.ordinal()]);
+				}
+			}
+		}
+		return total;
+	}
+
+	public static void reset() {
+		synchronized (recorders) {
+			for (LatencyHistogram h : retired) {
+				h.reset();
+			}
+			for (Recorder r : recorders) {
+				for (LatencyHistogram h : r.histograms) {
+					if (h != null) {
+						h.reset();
+					}
+				}
+			}
+		}
+	}
+
+	public static void report() {
+		if (sampleRate > 1) {
+			System.out.println("Latency sampled on 1 in " + sampleRate + " operations");
+		}
+		System.out.printf("%-16s %12s %10s %10s %10s %10s %10s%n",
+				"stage", "count", "mean ns", "p50 ns", "p99 ns", "p999 ns", "max ns");
+		for (Stage stage : STAGES) {
+			LatencyHistogram h = merged(stage);
+			if (h.getCount() == 0) {
+				continue;
+			}
+			System.out.printf("%-16s %12d %10.0f %10d %10d %10d %10d%n", stage, h.getCount(), h.getMean(),
+					h.valueAt(50), h.valueAt(99), h.valueAt(99.9), h.getMax());
+		}
+	}
+}
@@ -0,0 +1,122 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+// Binary log of every state change made by the staff: rooms assigned and
+// given back, tables occupied and freed, food served and payments. Each
+// change is a fixed 24-byte record after a 16-byte header:
+//
+//   type (4) | argument (4) | visitor id (8) | value (8)
+//
+// Records go into one buffer under a lock, so the log keeps the order in
+// which the changes happened even when staff work on several threads, and the
+// buffer is written to the file whenever it fills up. StateReplay reads a log
+// back into the final hotel state. Like EventLog, staff report to the current
+// log, and nothing is recorded while there is none.
+public class StateLog implements Closeable {
+
+	public static final int ROOM_ASSIGNED = 1;   // argument: room number
+	public static final int ROOM_RELEASED = 2;   // argument: room number
+	public static final int TABLE_OCCUPIED = 3;  // argument: table number, value: seats
+	public static final int TABLE_RELEASED = 4;  // argument: table number
+	public static final int FOOD_SERVED = 5;     // argument: dish
+	public static final int PAYMENT = 6;         // value: amount in cents
+
+	static final int RECORD_SIZE = 24;
+	static final int HEADER_SIZE = 16;
+	static final long MAGIC = 0x53544154454c4f47L; // "STATELOG"
+	static final int VERSION = 1;
+
+	private static volatile StateLog current;
+
+	private final FileChannel channel;
+	private final ByteBuffer buffer;
+	private long records = 0;
+	private IOException failure;
+
+	// Creates (or replaces) the log file; bufferSize is rounded down to whole records.
+	public StateLog(Path file, int bufferSize) throws IOException {
+		channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		buffer = ByteBuffer.allocateDirect(Math.max(1, bufferSize / RECORD_SIZE) * RECORD_SIZE);
+		buffer.order(ByteOrder.LITTLE_ENDIAN);
+		ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+		header.putLong(MAGIC).putInt(VERSION).putInt(RECORD_SIZE).flip();
+		while (header.hasRemaining()) {
+			channel.write(header);
+		}
+	}
+
+	public static StateLog getCurrent() {
+		return current;
+	}
+
+	public static void setCurrent(StateLog log) {
+		current = log;
+	}
+
+	public static boolean isEnabled() {
+		return current != null;
+	}
+
+	// Records a change in the current log, if there is one.
+	public static void record(int type, Visitor v, int argument, long value) {
+		StateLog log = current;
+		if (log != null) {
+			log.append(type, v == null || v.getId() == null ? 0 : v.getId().getId(), argument, value);
+		}
+	}
+
+	public synchronized void append(int type, long visitorId, int argument, long value) {
+		if (!buffer.hasRemaining()) {
+			writeBuffer();
+		}
+		buffer.putInt(type);
+		buffer.putInt(argument);
+		buffer.putLong(visitorId);
+		buffer.putLong(value);
+		records++;
+	}
+
+	public synchronized long size() {
+		return records;
+	}
+
+	// Writes out everything recorded so far.
+	public synchronized void flush() {
+		writeBuffer();
+		if (failure != null) {
+			throw new UncheckedIOException(failure);
+		}
+	}
+
+	private void writeBuffer() {
+		buffer.flip();
+		try {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+		} catch (IOException e) {
+			// keep the simulation going; the failure is reported by flush() and close()
+			failure = e;
+		}
+		buffer.clear();
+	}
+
+	@Override
+	public synchronized void close() throws IOException {
+		if (current == this) {
+			current = null;
+		}
+		writeBuffer();
+		channel.close();
+		if (failure != null) {
+			throw failure;
+		}
+	}
+}
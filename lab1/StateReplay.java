@@ -0,0 +1,170 @@
+import java.io.IOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+// Rebuilds the final hotel state from a StateLog file without running the
+// simulation again. The file is mapped read-only in large chunks and decoded
+// front to back, so replay runs at the speed the disk can deliver the file.
+// A record cut short at the end (from a run that did not close its log) is
+// ignored.
+public class StateReplay {
+
+	static final int RECORDS_PER_CHUNK = (64 << 20) / StateLog.RECORD_SIZE;
+
+	// visitor id per room and per table, 0 when free
+	private long[] roomVisitor = new long[64];
+	private long[] tableVisitor = new long[16];
+	private int roomCount = 0;
+	private int tableCount = 0;
+
+	private long[] dishes = new long[Cook.food.length];
+	private final long[] records = new long[StateLog.PAYMENT + 1];
+	private long paidCents = 0;
+	private long unknown = 0;
+
+	public static StateReplay replay(Path file) throws IOException {
+		StateReplay state = new StateReplay();
+		try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+			MappedByteBuffer head = in.map(FileChannel.MapMode.READ_ONLY, 0, StateLog.HEADER_SIZE);
+			head.order(ByteOrder.LITTLE_ENDIAN);
+			if (head.getLong(0) != StateLog.MAGIC || head.getInt(12) != StateLog.RECORD_SIZE) {
+				throw new IOException(file + " is not a state log");
+			}
+			long count = (in.size() - StateLog.HEADER_SIZE) / StateLog.RECORD_SIZE;
+			for (long done = 0; done < count; ) {
+				int n = (int) Math.min(RECORDS_PER_CHUNK, count - done);
+				MappedByteBuffer buf = in.map(FileChannel.MapMode.READ_ONLY,
+						StateLog.HEADER_SIZE + done * StateLog.RECORD_SIZE, (long) n * StateLog.RECORD_SIZE);
+				buf.order(ByteOrder.LITTLE_ENDIAN);
+				for (int i = 0, at = 0; i < n; i++, at += StateLog.RECORD_SIZE) {
+					state.apply(buf.getInt(at), buf.getInt(at + 4), buf.getLong(at + 8), buf.getLong(at + 16));
+				}
+				done += n;
+			}
+		}
+		return state;
+	}
+
+	private void apply(int type, int argument, long visitorId, long value) {
+		if (type <= 0 || type >= records.length) {
+			unknown++;
+			return;
+		}
+		records[type]++;
+		switch (type) {
+			case StateLog.ROOM_ASSIGNED:
+				if (argument >= 0) {
+					growRooms(argument);
+					roomVisitor[argument] = visitorId;
+				}
+				break;
+			case StateLog.ROOM_RELEASED:
+				if (argument >= 0) {
+					growRooms(argument);
+					roomVisitor[argument] = 0;
+				}
+				break;
+			case StateLog.TABLE_OCCUPIED:
+				if (argument >= 0) {
+					growTables(argument);
+					tableVisitor[argument] = visitorId;
+				}
+				break;
+			case StateLog.TABLE_RELEASED:
+				if (argument >= 0) {
+					growTables(argument);
+					tableVisitor[argument] = 0;
+				}
+				break;
+			case StateLog.FOOD_SERVED:
+				if (argument >= dishes.length) {
+					dishes = Arrays.copyOf(dishes, argument + 1);
+				}
+				dishes[argument]++;
+				break;
+			case StateLog.PAYMENT:
+				paidCents += value;
+				break;
+		}
+	}
+
+	private void growRooms(int number) {
+		if (number >= roomVisitor.length) {
+			roomVisitor = Arrays.copyOf(roomVisitor, Math.max(number + 1, roomVisitor.length * 2));
+		}
+		roomCount = Math.max(roomCount, number + 1);
+	}
+
+	private void growTables(int number) {
+		if (number >= tableVisitor.length) {
+			tableVisitor = Arrays.copyOf(tableVisitor, Math.max(number + 1, tableVisitor.length * 2));
+		}
+		tableCount = Math.max(tableCount, number + 1);
+	}
+
+	public long getRecords(int type) {
+		return records[type];
+	}
+
+	public long getPaidCents() {
+		return paidCents;
+	}
+
+	// visitor id in the room at the end of the log, 0 if it was free
+	public long roomVisitor(int number) {
+		return number < roomCount ? roomVisitor[number] : 0;
+	}
+
+	public int occupiedRooms() {
+		int n = 0;
+		for (int i = 0; i < roomCount; i++) {
+			if (roomVisitor[i] != 0) {
+				n++;
+			}
+		}
+		return n;
+	}
+
+	public int occupiedTables() {
+		int n = 0;
+		for (int i = 0; i < tableCount; i++) {
+			if (tableVisitor[i] != 0) {
+				n++;
+			}
+		}
+		return n;
+	}
+
+	// A hotel with the replayed rooms taken; the log only knows rooms it has
+	// seen, so give the real size if some were never used.
+	public Hotel toHotel(int size) {
+		size = Math.max(size, roomCount);
+		long[] free = new long[(size + 63) >>> 6];
+		for (int i = 0; i < size; i++) {
+			if (i >= roomCount || roomVisitor[i] == 0) {
+				free[i >>> 6] |= 1L << i;
+			}
+		}
+		return new Hotel(new RoomInventory(size, free));
+	}
+
+	public void printReport() {
+		System.out.println("Rooms: " + records[StateLog.ROOM_ASSIGNED] + " assigned, "
+				+ records[StateLog.ROOM_RELEASED] + " given back, " + occupiedRooms() + " taken at the end");
+		System.out.println("Tables: " + records[StateLog.TABLE_OCCUPIED] + " seatings, "
+				+ occupiedTables() + " of " + tableCount + " taken at the end");
+		StringBuilder sb = new StringBuilder("Dishes served:");
+		for (int i = 0; i < dishes.length; i++) {
+			sb.append(' ').append(i < Cook.food.length ? Cook.food[i] : "dish " + i).append('=').append(dishes[i]);
+		}
+		System.out.println(sb);
+		System.out.printf("Payments: %d, %.2f in total%n", records[StateLog.PAYMENT], paidCents / 100.0);
+		if (unknown > 0) {
+			System.out.println("Records of unknown type: " + unknown);
+		}
+	}
+}
@@ -2,12 +2,30 @@ public class Table {
     
     private Visitor visitor;
     private boolean occupied;
+    private final int seats;
+    private long turns;
+    // position in the restaurant, used by StateLog; -1 when not numbered
+    int number = -1;
 
     public Table(){
+        this(4);
+      }
+
+    public Table(int seats){
         this.visitor = null;
         this.occupied = false;
+        this.seats = seats;
       }
 
+    public int getSeats(){
+        return this.seats;
+    }
+
+    // how many times the table has been occupied
+    public long getTurns(){
+        return this.turns;
+    }
+
     public Visitor getVisitor(){
         return this.visitor;
     }
@@ -17,9 +35,33 @@ public class Table {
     }
 
     public void occupy(Visitor visitor){
+        long start = StageLatency.start();
         this.visitor = visitor;
         this.occupied = true;
-        System.out.println("A table was occupied by the visitor with id " + visitor.id.getId());
+        this.turns++;
+        StateLog.record(StateLog.TABLE_OCCUPIED, visitor, number, seats);
+        EventLog.log("A table was occupied by the visitor with id {}", visitor.getId());
+        StageLatency.record(StageLatency.Stage.OCCUPY_TABLE, start);
+      }
+
+    // for forked simulations, which put the occupant back later
+    void setVisitor(Visitor visitor){
+        this.visitor = visitor;
+    }
+
+    // same size, state and turns, without the occupant
+    Table copy(){
+        Table t = new Table(seats);
+        t.occupied = occupied;
+        t.turns = turns;
+        t.number = number;
+        return t;
+    }
+
+    public void release(){
+        StateLog.record(StateLog.TABLE_RELEASED, visitor, number, 0);
+        this.visitor = null;
+        this.occupied = false;
       }
 
 }
@@ -0,0 +1,225 @@
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+// Thread-per-visitor mode: every visitor runs its whole journey (reception,
+// room, restaurant, payment) as one task. Staff and tables are pooled, so a
+// visitor waits when every member of a role is busy.
+public class ThreadedSimulation {
+
+	public enum Mode {
+		VIRTUAL, PLATFORM
+	}
+
+	private final Mode mode;
+	private final int platformThreads;
+	private final long stayMillis;
+
+	private final Semaphore rooms;
+	private final Hotel hotel;
+	private final ResourcePool<Table> tables;
+	private final ResourcePool<ReceptionStaff> receptionists;
+	private final ResourcePool<CleanerStaff> cleaners;
+	private final ResourcePool<BaggagePorterSt> porters;
+	private final ResourcePool<Chev> chevs;
+	private final ResourcePool<Cook> cooks;
+	private final ResourcePool<Barman> barmen;
+	private final ResourcePool<Cashier> cashiers;
+	private final ResourcePool<Waiter> waiters;
+
+	// one per thread, moved to each visitor's stream when its journey starts
+	private static final ThreadLocal<RandomSource.Keyed> journeyRandom =
+			ThreadLocal.withInitial(RandomSource.Keyed::new);
+
+	private final long seed;
+	private final LongAdder completed = new LongAdder();
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicInteger peakInFlight = new AtomicInteger();
+
+	public ThreadedSimulation(Mode mode, long seed, int platformThreads, int roomCount, int tableCount,
+			int staffPerRole, long stayMillis) {
+		this.seed = seed;
+		this.mode = mode;
+		this.platformThreads = platformThreads;
+		this.stayMillis = stayMillis;
+
+		hotel = new Hotel(roomCount);
+		rooms = new Semaphore(roomCount);
+		tables = new ResourcePool<>(tableCount);
+		for (int i = 0; i < tableCount; i++) {
+			Table t = new Table();
+			t.number = i;
+			tables.add(t);
+		}
+
+		receptionists = new ResourcePool<>(staffPerRole);
+		cleaners = new ResourcePool<>(staffPerRole);
+		porters = new ResourcePool<>(staffPerRole);
+		chevs = new ResourcePool<>(staffPerRole);
+		cooks = new ResourcePool<>(staffPerRole);
+		barmen = new ResourcePool<>(staffPerRole);
+		cashiers = new ResourcePool<>(staffPerRole);
+		waiters = new ResourcePool<>(staffPerRole);
+		for (int i = 0; i < staffPerRole; i++) {
+			receptionists.add(new ReceptionStaff("Steve-" + i));
+			cleaners.add(new CleanerStaff("John-" + i));
+			porters.add(new BaggagePorterSt("Daniil-" + i));
+			chevs.add(new Chev("Boris-" + i));
+			cooks.add(new Cook("Abdul-" + i));
+			barmen.add(new Barman("Yurii-" + i));
+			cashiers.add(new Cashier("Lena-" + i));
+			waiters.add(new Waiter("Maria-" + i));
+		}
+	}
+
+	// Virtual threads are only available on Java 21+, older runtimes get a
+	// platform-thread pool instead.
+	private ExecutorService newExecutor() {
+		if (mode == Mode.VIRTUAL) {
+			try {
+				Method m = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+				return (ExecutorService) m.invoke(null);
+			} catch (ReflectiveOperationException e) {
+				System.out.println("Virtual threads are not supported by this JVM, using a platform-thread pool");
+			}
+		}
+		return Executors.newFixedThreadPool(platformThreads);
+	}
+
+	private void journey(Visitor v) throws InterruptedException {
+		int now = inFlight.incrementAndGet();
+		peakInFlight.accumulateAndGet(now, Math::max);
+
+		// every pool member and permit is given back on every path, including
+		// an interrupt or an exception from the staff member holding it
+		boolean reserved = false;
+		boolean hasRoom = false;
+		try {
+			if (v.getTiredState()) {
+				rooms.acquire();
+				reserved = true;
+
+				ReceptionStaff rs = receptionists.acquire();
+				try {
+					hasRoom = rs.assignRoom(hotel, v) != null;
+				} finally {
+					receptionists.release(rs);
+				}
+
+				CleanerStaff cs = cleaners.acquire();
+				try {
+					cs.setCleaned(true);
+				} finally {
+					cleaners.release(cs);
+				}
+
+				BaggagePorterSt bg = porters.acquire();
+				try {
+					bg.moveBaggage(v.room, v.b);
+				} finally {
+					porters.release(bg);
+				}
+			}
+
+			if (v.getHungryState()) {
+				Table table = tables.acquire();
+				try {
+					table.occupy(v);
+
+					Chev chev = chevs.acquire();
+					try {
+						chev.setNation();
+					} finally {
+						chevs.release(chev);
+					}
+
+					Cook cook = cooks.acquire();
+					try {
+						cook.servFood(v);
+					} finally {
+						cooks.release(cook);
+					}
+
+					Barman barman = barmen.acquire();
+					try {
+						barman.servDrink(v);
+					} finally {
+						barmen.release(barman);
+					}
+
+					if (stayMillis > 0) {
+						Thread.sleep(stayMillis);
+					}
+
+					Cashier cashier = cashiers.acquire();
+					try {
+						cashier.payment();
+					} finally {
+						cashiers.release(cashier);
+					}
+
+					Waiter waiter = waiters.acquire();
+					try {
+						waiter.service();
+					} finally {
+						waiters.release(waiter);
+					}
+				} finally {
+					table.release();
+					tables.release(table);
+				}
+			} else if (stayMillis > 0) {
+				Thread.sleep(stayMillis);
+			}
+		} finally {
+			if (hasRoom) {
+				// checking out must happen even after an interrupt
+				ReceptionStaff rs = receptionists.acquireUninterruptibly();
+				try {
+					rs.checkOut(hotel, v);
+				} finally {
+					receptionists.release(rs);
+				}
+			}
+			if (reserved) {
+				rooms.release();
+			}
+			inFlight.decrementAndGet();
+		}
+		completed.increment();
+	}
+
+	public void run(long visitors) throws InterruptedException {
+		long start = System.nanoTime();
+		ExecutorService executor = newExecutor();
+		RandomSource.Keyed arrivals = new RandomSource.Keyed();
+		for (long n = 0; n < visitors; n++) {
+			// draws are keyed on the visitor number, so the outcome does not
+			// depend on scheduling, and moving a stream to a key allocates nothing
+			long key = RandomSource.key(seed, n);
+			arrivals.setKey(RandomSource.key(key, 0));
+			Visitor v = Simulation.generateVisitor(arrivals);
+			v.randomKey = key;
+			executor.execute(() -> {
+				RandomSource.Keyed rand = journeyRandom.get();
+				rand.setKey(RandomSource.key(v.randomKey, 1));
+				RandomSource.bind(rand);
+				try {
+					journey(v);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			});
+		}
+		executor.shutdown();
+		executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+		long elapsed = System.nanoTime() - start;
+
+		System.out.println(mode + " mode handled " + completed.sum() + " visitors in " + elapsed / 1_000_000
+				+ " ms, peak " + peakInFlight.get() + " visitors in flight");
+	}
+}
@@ -1,10 +1,18 @@
-import java.util.Random;
+import java.util.random.RandomGenerator;
 
 public class Visitor {
 
 	Id id;
 	Baggage b;
 	boolean paymentState = false;
+	Room room = null;
+	Party party = null;
+	long enteredAt = 0;
+	// simulated minute the visitor arrived at, set by ArrivalStream
+	double arrivedAt = 0;
+	// key of the visitor's own random streams (see RandomSource.Keyed), set by
+	// simulations that serve one visitor on several threads
+	long randomKey = 0;
 	private String type = "New";
 	private boolean hungryState = true;
 	private boolean tiredState = true;
@@ -39,9 +47,31 @@ public class Visitor {
 		return this.id;
 	}
 
+	public double getArrivedAt(){
+		return this.arrivedAt;
+	}
+
+	// for VisitorView, which fills the fields in from a VisitorStore
+	Visitor() {
+	}
+
+	// restores a visitor from a SimSnapshot without drawing a new id or bag
+	Visitor(Id id, Baggage b, boolean hungryState, boolean tiredState) {
+		this.id = id;
+		this.b = b;
+		this.hungryState = hungryState;
+		this.tiredState = tiredState;
+	}
+
 	public Visitor(boolean hungryState, boolean tiredState) {
+		this(hungryState, tiredState, RandomSource.current());
+	}
+
+	// draws the bag type from rand instead of the thread's stream
+	Visitor(boolean hungryState, boolean tiredState, RandomGenerator rand) {
 		id = new Id();
-		b = null;
+		// only visitors who stay the night bring luggage
+		b = tiredState ? new Baggage(rand) : null;
 		this.hungryState = hungryState;
 		this.tiredState = tiredState;
 
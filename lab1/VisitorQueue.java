@@ -1,24 +1,45 @@
-import java.util.Queue;
-import java.util.LinkedList;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
 
 public class VisitorQueue {
-    
-    private Queue<Visitor> visitorQueue;
 
+    private BlockingQueue<Visitor> visitorQueue;
+
+    // unbounded, so addVisitor never runs out of room
     public VisitorQueue(){
-        visitorQueue = new LinkedList<>();
+        visitorQueue = new LinkedBlockingQueue<>();
+    }
+
+    // bounded, safe for many producers and many consumers
+    public VisitorQueue(int capacity){
+        visitorQueue = new ArrayBlockingQueue<>(capacity);
     }
 
+    // never blocks; a bounded queue that is full throws IllegalStateException, use put() there
     public void addVisitor(Visitor v){
         visitorQueue.add(v);
-        System.out.println("The visitor with id " + v.getId() + " was added to the queue");
+        EventLog.log("The visitor with id {} was added to the queue", v.getId());
       }
-    
+
     public Visitor removeVisitor(){
       Visitor visitor = visitorQueue.remove();
-      System.out.println("The "+visitor.getClass().toString().substring(6)+" with id "+visitor.getId()+" left the queue");
+      EventLog.log("The {} with id {} left the queue", visitor.getClass().getSimpleName(), visitor.getId());
       return visitor;
     }
 
+    // blocks while the queue is full
+    public void put(Visitor v) throws InterruptedException {
+        visitorQueue.put(v);
+    }
+
+    // blocks while the queue is empty
+    public Visitor take() throws InterruptedException {
+        return visitorQueue.take();
+    }
+
+    public int size(){
+        return visitorQueue.size();
+    }
 
 }
@@ -0,0 +1,93 @@
+import java.util.Arrays;
+
+// Struct-of-arrays storage for very large visitor populations. A visitor is
+// a row index; its id, flags and room number live in primitive arrays, about
+// 13 bytes per visitor instead of the 100+ bytes of a Visitor object graph.
+// Use view() to work with a stored visitor through the normal Visitor API.
+public class VisitorStore {
+
+	static final byte HUNGRY = 1;
+	static final byte TIRED = 2;
+	static final byte PAID = 4;
+
+	static final int NO_ROOM = -1;
+
+	private long[] ids;
+	private byte[] flags;
+	private int[] rooms;
+	private int size = 0;
+
+	public VisitorStore(int capacity) {
+		ids = new long[capacity];
+		flags = new byte[capacity];
+		rooms = new int[capacity];
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public int capacity() {
+		return ids.length;
+	}
+
+	// Returns the index of the new visitor.
+	public int add(boolean hungry, boolean tired) {
+		if (size == ids.length) {
+			grow();
+		}
+		int i = size++;
+		ids[i] = IdGenerator.next();
+		flags[i] = (byte) ((hungry ? HUNGRY : 0) | (tired ? TIRED : 0));
+		rooms[i] = NO_ROOM;
+		return i;
+	}
+
+	private void grow() {
+		// in long, so 1.5x of a large store cannot overflow
+		long grown = Math.min(Integer.MAX_VALUE - 8L, Math.max(16L, ids.length + (ids.length >> 1)));
+		if (grown <= ids.length) {
+			throw new IllegalStateException("VisitorStore cannot hold more than " + ids.length + " visitors");
+		}
+		int capacity = (int) grown;
+		ids = Arrays.copyOf(ids, capacity);
+		flags = Arrays.copyOf(flags, capacity);
+		rooms = Arrays.copyOf(rooms, capacity);
+	}
+
+	public long id(int i) {
+		return ids[i];
+	}
+
+	public boolean isHungry(int i) {
+		return (flags[i] & HUNGRY) != 0;
+	}
+
+	public boolean isTired(int i) {
+		return (flags[i] & TIRED) != 0;
+	}
+
+	public boolean isPaid(int i) {
+		return (flags[i] & PAID) != 0;
+	}
+
+	public void setPaid(int i, boolean paid) {
+		flags[i] = (byte) (paid ? flags[i] | PAID : flags[i] & ~PAID);
+	}
+
+	public int room(int i) {
+		return rooms[i];
+	}
+
+	public void setRoom(int i, int room) {
+		rooms[i] = room;
+	}
+
+	// A flyweight positioned on visitor i. Room numbers are resolved against
+	// 'inventory', which may be null if rooms are not used.
+	public VisitorView view(int i, RoomInventory inventory) {
+		VisitorView v = new VisitorView(this, inventory);
+		v.moveTo(i);
+		return v;
+	}
+}
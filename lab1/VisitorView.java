@@ -0,0 +1,72 @@
+
+// Flyweight Visitor backed by a VisitorStore row. One view can walk over
+// millions of stored visitors with moveTo(); staff code sees an ordinary
+// Visitor. Changes made through the Visitor fields (room, payment state) are
+// written back to the store by flush(), which moveTo() calls for the
+// previous row. Because the view moves on, never hand it to code that keeps
+// the reference (Room.setVisitor, Table.occupy); pass detach() instead.
+// The row's id is kept as a long; an Id object is only built when asked for.
+public class VisitorView extends Visitor {
+
+	private final VisitorStore store;
+	private final RoomInventory inventory;
+	private int index = -1;
+	private long visitorId;
+
+	VisitorView(VisitorStore store, RoomInventory inventory) {
+		this.store = store;
+		this.inventory = inventory;
+	}
+
+	public int getIndex() {
+		return index;
+	}
+
+	public VisitorView moveTo(int i) {
+		flush();
+		index = i;
+		visitorId = store.id(i);
+		id = null;
+		paymentState = store.isPaid(i);
+		int number = store.room(i);
+		room = number == VisitorStore.NO_ROOM || inventory == null ? null : inventory.room(number);
+		b = null;
+		return this;
+	}
+
+	// A standalone Visitor with the current row's state, safe to store.
+	// Copy its room back (room = detached.room) if staff changed it.
+	public Visitor detach() {
+		Visitor v = new Visitor(getId(), null, getHungryState(), getTiredState());
+		v.paymentState = paymentState;
+		v.room = room;
+		return v;
+	}
+
+	public void flush() {
+		if (index < 0) {
+			return;
+		}
+		store.setPaid(index, paymentState);
+		store.setRoom(index, room == null ? VisitorStore.NO_ROOM : room.getNumber());
+	}
+
+	// A new Id for every row, since events may be formatted after the view has moved on
+	@Override
+	public Id getId() {
+		if (id == null) {
+			id = new Id(visitorId);
+		}
+		return id;
+	}
+
+	@Override
+	public boolean getHungryState() {
+		return store.isHungry(index);
+	}
+
+	@Override
+	public boolean getTiredState() {
+		return store.isTired(index);
+	}
+}
@@ -11,8 +11,10 @@ public class Waiter extends RestStaff{
       }
 
     public void service() {
+		long start = StageLatency.start();
 		this.service = true;
-		System.out.println("The table was served by waiter "+ name);
+		EventLog.log("The table was served by waiter {}", name);
+		StageLatency.record(StageLatency.Stage.WAITER_SERVICE, start);
 	}
 
 }
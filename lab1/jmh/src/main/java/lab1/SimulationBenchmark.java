@@ -0,0 +1,84 @@
+package lab1;
+
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// The lab1 hot paths with staff output discarded: serving one visitor the
+// way Simulation does, with stage timing off or sampled, drawing a visitor,
+// and one simulated day of EventSimulation.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+public class SimulationBenchmark {
+
+	@State(Scope.Thread)
+	public static class Visitors {
+		SplittableRandom rand;
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			EventLog.setSink(new DiscardSink());
+			rand = RandomSource.stream(42, 0);
+			RandomSource.bind(rand);
+			Simulation.setUp();
+		}
+	}
+
+	// StageLatency sample rate: 0 for off, 1 to time every stage
+	@State(Scope.Thread)
+	public static class Latency {
+		@Param({"0", "1", "1000"})
+		int sampleRate;
+
+		@Setup(Level.Trial)
+		public void setUp() {
+			StageLatency.setEnabled(sampleRate > 0);
+			StageLatency.setSampleRate(sampleRate);
+		}
+
+		@TearDown(Level.Trial)
+		public void tearDown() {
+			StageLatency.setEnabled(false);
+			StageLatency.setSampleRate(1);
+			StageLatency.reset();
+		}
+	}
+
+	@Benchmark
+	public Visitor handleVisitor(Visitors visitors, Latency latency) {
+		Visitor v = Simulation.generateVisitor(visitors.rand);
+		Simulation.handleVisitor(v);
+		return v;
+	}
+
+	@Benchmark
+	public Visitor generateVisitor(Visitors visitors) {
+		return Simulation.generateVisitor(visitors.rand);
+	}
+
+	// one simulated day per operation
+	@Benchmark
+	@OutputTimeUnit(TimeUnit.MILLISECONDS)
+	@BenchmarkMode(Mode.AverageTime)
+	public EventSimulation eventSimulationDay(Visitors visitors) {
+		EventSimulation sim = new EventSimulation(42, 2.0, 200);
+		sim.run(24 * 60, Long.MAX_VALUE);
+		return sim;
+	}
+}
@@ -1,6 +1,7 @@
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicLong;
 
 // HotelComponent interface
 interface HotelComponent extends Cloneable {
@@ -12,7 +13,7 @@ interface HotelComponent extends Cloneable {
 abstract class Worker implements HotelComponent {
     @Override
     public void interact() {
-        System.out.println("Worker is performing general duties.");
+        EventLog.log("Worker is performing general duties.");
     }
 
     @Override
@@ -30,8 +31,8 @@ abstract class Worker implements HotelComponent {
 class ReceptionWorker extends Worker {
     @Override
     public void interact() {
-        System.out.println("Reception worker is assisting a visitor.");
-        System.out.println("Visitor gets a room.");
+        EventLog.log("Reception worker is assisting a visitor.");
+        EventLog.log("Visitor gets a room.");
     }
 }
 
@@ -41,15 +42,14 @@ class RestaurantWorker extends Worker {
 
     @Override
     public void interact() {
-        System.out.println("Restaurant worker is taking an order from a visitor.");
+        EventLog.log("Restaurant worker is taking an order from a visitor.");
         serveFood();
     }
 
     private void serveFood() {
-        Random random = new Random();
-        int index = random.nextInt(foodMenu.size());
+        int index = RandomSource.current().nextInt(foodMenu.size());
         String foodItem = foodMenu.get(index);
-        System.out.println("Visitor is having " + foodItem + " in the restaurant.");
+        EventLog.log("Visitor is having {} in the restaurant.", foodItem);
     }
 
     private static List<String> createFoodMenu() {
@@ -72,7 +72,7 @@ class RestaurantWorker extends Worker {
 class Visitor implements HotelComponent {
     @Override
     public void interact() {
-        System.out.println("Visitor is interacting.");
+        EventLog.log("Visitor is interacting.");
     }
 
     @Override
@@ -85,7 +85,7 @@ class Visitor implements HotelComponent {
 class Room implements HotelComponent {
     @Override
     public void interact() {
-        System.out.println("Room is being used.");
+        EventLog.log("Room is being used.");
     }
 
     @Override
@@ -98,7 +98,7 @@ class Room implements HotelComponent {
 class Bar implements HotelComponent {
     @Override
     public void interact() {
-        System.out.println("Bar is serving drinks.");
+        EventLog.log("Bar is serving drinks.");
     }
 
     @Override
@@ -162,7 +162,7 @@ class HotelDirector implements HotelComponent {
 
     @Override
     public void interact() {
-        System.out.println("Hotel director announces: \"Hotel is open now!\"");
+        EventLog.log("Hotel director announces: \"Hotel is open now!\"");
     }
 
     @Override
@@ -177,9 +177,113 @@ interface HotelComponentFactory {
     HotelComponent createComponent();
 }
 
+// EventSink interface: destination for simulation events. An event is a
+// template with "{}" placeholders plus up to three arguments, and is only
+// formatted when a sink actually writes it.
+interface EventSink {
+    void write(String template, Object a, Object b, Object c);
+}
+
+// ConsoleSink class: prints every event on standard output
+class ConsoleSink implements EventSink {
+    @Override
+    public void write(String template, Object a, Object b, Object c) {
+        System.out.println(EventLog.format(template, a, b, c));
+    }
+}
+
+// DiscardSink class: drops every event
+class DiscardSink implements EventSink {
+    @Override
+    public void write(String template, Object a, Object b, Object c) {
+    }
+}
+
+// EventLog class: every component reports through the current sink
+class EventLog {
+    private static volatile EventSink sink = new ConsoleSink();
+
+    public static void setSink(EventSink newSink) {
+        sink = newSink;
+    }
+
+    // "console" or "discard"
+    public static EventSink fromSpec(String spec) {
+        return spec.equals("discard") ? new DiscardSink() : new ConsoleSink();
+    }
+
+    public static void log(String message) {
+        sink.write(message, null, null, null);
+    }
+
+    public static void log(String template, Object a) {
+        sink.write(template, a, null, null);
+    }
+
+    public static void log(String template, Object a, Object b) {
+        sink.write(template, a, b, null);
+    }
+
+    public static void log(String template, Object a, Object b, Object c) {
+        sink.write(template, a, b, c);
+    }
+
+    public static String format(String template, Object a, Object b, Object c) {
+        if (template.indexOf('{') < 0) {
+            return template;
+        }
+        StringBuilder sb = new StringBuilder(template.length() + 32);
+        int arg = 0;
+        int from = 0;
+        int at;
+        while ((at = template.indexOf("{}", from)) >= 0 && arg < 3) {
+            sb.append(template, from, at);
+            sb.append(arg == 0 ? a : arg == 1 ? b : c);
+            arg++;
+            from = at + 2;
+        }
+        sb.append(template, from, template.length());
+        return sb.toString();
+    }
+}
+
+// RandomSource class: seeded random streams, one per thread
+class RandomSource {
+    private static volatile long rootSeed = System.nanoTime();
+    private static final AtomicLong nextStream = new AtomicLong();
+    private static final ThreadLocal<SplittableRandom> current =
+            ThreadLocal.withInitial(() -> stream(nextStream.getAndIncrement()));
+
+    public static void setSeed(long seed) {
+        rootSeed = seed;
+        nextStream.set(0);
+    }
+
+    // Independent stream number 'id' of the current root seed
+    public static SplittableRandom stream(long id) {
+        return new SplittableRandom(mix64(rootSeed + mix64(id)));
+    }
+
+    public static SplittableRandom current() {
+        return current.get();
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
+
 // HotelSimulation class
 public class HotelSimulation {
     public static void main(String[] args) {
+        if (args.length > 0) {
+            RandomSource.setSeed(Long.parseLong(args[0]));
+        }
+        // -Dhotel.log=console|discard
+        EventLog.setSink(EventLog.fromSpec(System.getProperty("hotel.log", "console")));
+
         HotelDirector hotelDirector = HotelDirector.getInstance();
 
         // Announce the hotel is open
@@ -192,7 +296,7 @@ public class HotelSimulation {
         HotelComponentFactory restaurantWorkerFactory = new RestaurantWorkerFactory();
 
         for (int i = 0; i < 5; i++) {
-            System.out.println("Day " + (i + 1));
+            EventLog.log("Day {}", i + 1);
 
             // Simulate visitor interaction
             HotelComponent visitor = visitorFactory.createComponent();
@@ -230,7 +334,8 @@ public class HotelSimulation {
             HotelComponent clonedRestaurantWorker = restaurantWorker.cloneComponent();
             clonedRestaurantWorker.interact();
 
-            System.out.println(); // Add a line break for better readability
+            EventLog.log(""); // Add a line break for better readability
         }
+
     }
 }
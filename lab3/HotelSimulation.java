@@ -1,37 +1,49 @@
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
 
 // HotelComponent interface
 interface HotelComponent extends Cloneable {
     void interact();
     HotelComponent cloneComponent();
+
+    // Puts this instance back into the state of 'prototype', an instance of
+    // the same class; used by PooledComponentFactory to reuse released components
+    default void reset(HotelComponent prototype) {
+    }
 }
 
 // Worker abstract class
 abstract class Worker implements HotelComponent {
     @Override
     public void interact() {
-        System.out.println("Worker is performing general duties.");
+        EventLog.log("Worker is performing general duties.");
     }
 
+    // Each kind of worker copies itself with 'new' instead of Object.clone
     @Override
-    public HotelComponent cloneComponent() {
-        try {
-            return (Worker) super.clone();
-        } catch (CloneNotSupportedException e) {
-            e.printStackTrace();
-            return null;
-        }
-    }
+    public abstract HotelComponent cloneComponent();
 }
 
 // ReceptionWorker concrete class
 class ReceptionWorker extends Worker {
     @Override
     public void interact() {
-        System.out.println("Reception worker is assisting a visitor.");
-        System.out.println("Visitor gets a room.");
+        EventLog.log("Reception worker is assisting a visitor.");
+        EventLog.log("Visitor gets a room.");
+    }
+
+    @Override
+    public HotelComponent cloneComponent() {
+        return new ReceptionWorker();
     }
 }
 
@@ -41,15 +53,14 @@ class RestaurantWorker extends Worker {
 
     @Override
     public void interact() {
-        System.out.println("Restaurant worker is taking an order from a visitor.");
+        EventLog.log("Restaurant worker is taking an order from a visitor.");
         serveFood();
     }
 
     private void serveFood() {
-        Random random = new Random();
-        int index = random.nextInt(foodMenu.size());
+        int index = RandomSource.current().nextInt(foodMenu.size());
         String foodItem = foodMenu.get(index);
-        System.out.println("Visitor is having " + foodItem + " in the restaurant.");
+        EventLog.log("Visitor is having {} in the restaurant.", foodItem);
     }
 
     private static List<String> createFoodMenu() {
@@ -72,7 +83,7 @@ class RestaurantWorker extends Worker {
 class Visitor implements HotelComponent {
     @Override
     public void interact() {
-        System.out.println("Visitor is interacting.");
+        EventLog.log("Visitor is interacting.");
     }
 
     @Override
@@ -85,7 +96,7 @@ class Visitor implements HotelComponent {
 class Room implements HotelComponent {
     @Override
     public void interact() {
-        System.out.println("Room is being used.");
+        EventLog.log("Room is being used.");
     }
 
     @Override
@@ -98,7 +109,7 @@ class Room implements HotelComponent {
 class Bar implements HotelComponent {
     @Override
     public void interact() {
-        System.out.println("Bar is serving drinks.");
+        EventLog.log("Bar is serving drinks.");
     }
 
     @Override
@@ -111,7 +122,7 @@ class Bar implements HotelComponent {
 class RawFood implements HotelComponent {
     @Override
     public void interact() {
-        System.out.println("Raw food has arrived at the hotel.");
+        EventLog.log("Raw food has arrived at the hotel.");
     }
 
     @Override
@@ -124,7 +135,7 @@ class RawFood implements HotelComponent {
 class RawDrinks implements HotelComponent {
     @Override
     public void interact() {
-        System.out.println("Raw drinks have arrived at the hotel.");
+        EventLog.log("Raw drinks have arrived at the hotel.");
     }
 
     @Override
@@ -137,7 +148,7 @@ class RawDrinks implements HotelComponent {
 class Cleanser implements HotelComponent {
     @Override
     public void interact() {
-        System.out.println("Cleanser has arrived at the hotel.");
+        EventLog.log("Cleanser has arrived at the hotel.");
     }
 
     @Override
@@ -209,23 +220,41 @@ class BarFactory implements HotelComponentFactory {
 
 // HotelDirector class
 class HotelDirector implements HotelComponent {
-    // Singleton implementation
-    private static HotelDirector instance;
+    // Singleton implementation: the holder class is only initialized on the
+    // first call to getInstance, and class initialization guarantees that
+    // every thread sees the same fully built director without any locking
+    private static final class Holder {
+        static final HotelDirector INSTANCE = new HotelDirector(null);
+    }
+
+    // property this director runs, or null for the single hotel
+    private final String property;
 
-    private HotelDirector() {
+    private HotelDirector(String property) {
         // Private constructor to prevent instantiation
+        this.property = property;
     }
 
     public static HotelDirector getInstance() {
-        if (instance == null) {
-            instance = new HotelDirector();
-        }
-        return instance;
+        return Holder.INSTANCE;
+    }
+
+    // Only DirectorRegistry makes directors of properties
+    static HotelDirector forProperty(String property) {
+        return new HotelDirector(property);
+    }
+
+    public String getProperty() {
+        return property;
     }
 
     @Override
     public void interact() {
-        System.out.println("Hotel director announces: \"Hotel is open now!\"");
+        if (property == null) {
+            EventLog.log("Hotel director announces: \"Hotel is open now!\"");
+        } else {
+            EventLog.log("Hotel director of {} announces: \"Hotel is open now!\"", property);
+        }
     }
 
     @Override
@@ -235,33 +264,183 @@ class HotelDirector implements HotelComponent {
     }
 }
 
+// DirectorRegistry class: one HotelDirector per property of a hotel chain.
+// Lookups are plain reads of a ConcurrentHashMap, which take no lock, so any
+// number of threads can look directors up at once. A director is created the
+// first time its property is asked for and is never replaced.
+class DirectorRegistry {
+    private final ConcurrentHashMap<String, HotelDirector> directors;
+
+    public DirectorRegistry() {
+        this(16);
+    }
+
+    // 'properties' is the expected size of the chain
+    public DirectorRegistry(int properties) {
+        directors = new ConcurrentHashMap<>(properties);
+    }
+
+    public HotelDirector director(String property) {
+        // get first: computeIfAbsent may lock the bin even when the key is present
+        HotelDirector director = directors.get(property);
+        if (director == null) {
+            director = directors.computeIfAbsent(property, HotelDirector::forProperty);
+        }
+        return director;
+    }
+
+    public int size() {
+        return directors.size();
+    }
+}
+
 // HotelComponentFactory interface
 interface HotelComponentFactory {
     HotelComponent createComponent();
 }
 
+// PooledComponentFactory class: wraps any HotelComponentFactory and reuses
+// the components given back through release. Each thread keeps its own free
+// list, so create and release normally touch no shared state. A thread whose
+// list is full moves half of it to a shared overflow, and a thread whose list
+// runs empty takes a batch back from there. At most maxSize components wait
+// in the overflow and at most LOCAL_SIZE in each thread's list; anything
+// released beyond that is left to the garbage collector. A reused component
+// is reset to the state of a fresh one from the wrapped factory.
+class PooledComponentFactory implements HotelComponentFactory {
+    static final int LOCAL_SIZE = 32;
+
+    private static final class FreeList {
+        final HotelComponent[] items;
+        int size = 0;
+
+        FreeList(int capacity) {
+            items = new HotelComponent[capacity];
+        }
+    }
+
+    private final HotelComponentFactory factory;
+    private final HotelComponent fresh;
+    private final int maxSize;
+    private final ThreadLocal<FreeList> local;
+    private final HotelComponent[] overflow;
+    private int overflowSize = 0; // guarded by overflow
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public PooledComponentFactory(HotelComponentFactory factory, int maxSize) {
+        this.factory = factory;
+        this.fresh = factory.createComponent();
+        this.maxSize = maxSize;
+        int localSize = Math.min(LOCAL_SIZE, maxSize);
+        this.local = ThreadLocal.withInitial(() -> new FreeList(localSize));
+        this.overflow = new HotelComponent[maxSize];
+    }
+
+    @Override
+    public HotelComponent createComponent() {
+        FreeList list = local.get();
+        if (list.size == 0 && !refill(list)) {
+            created.incrementAndGet();
+            return factory.createComponent();
+        }
+        HotelComponent component = list.items[--list.size];
+        list.items[list.size] = null;
+        component.reset(fresh);
+        return component;
+    }
+
+    // Gives back a component made by this factory; the caller must not use it afterwards
+    public void release(HotelComponent component) {
+        FreeList list = local.get();
+        if (list.size == list.items.length && !spill(list)) {
+            dropped.incrementAndGet();
+            return;
+        }
+        list.items[list.size++] = component;
+    }
+
+    private boolean refill(FreeList list) {
+        synchronized (overflow) {
+            int n = Math.min((list.items.length + 1) / 2, overflowSize);
+            overflowSize -= n;
+            System.arraycopy(overflow, overflowSize, list.items, 0, n);
+            Arrays.fill(overflow, overflowSize, overflowSize + n, null);
+            list.size = n;
+            return n > 0;
+        }
+    }
+
+    private boolean spill(FreeList list) {
+        synchronized (overflow) {
+            int n = Math.min((list.items.length + 1) / 2, maxSize - overflowSize);
+            list.size -= n;
+            System.arraycopy(list.items, list.size, overflow, overflowSize, n);
+            Arrays.fill(list.items, list.size, list.size + n, null);
+            overflowSize += n;
+            return n > 0;
+        }
+    }
+
+    // components the wrapped factory had to make because no released one was free
+    public long getCreated() {
+        return created.get();
+    }
+
+    // released components that did not fit in the pool
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+}
+
 // HotelFacade class
 class HotelFacade {
+    // a reasonable size for the opt-in pooled facade
+    static final int POOL_SIZE = 64;
+
     private HotelDirector hotelDirector;
     private HotelComponentFactory visitorFactory;
     private HotelComponentFactory roomFactory;
     private HotelComponentFactory barFactory;
     private HotelComponentFactory receptionWorkerFactory;
     private HotelComponentFactory restaurantWorkerFactory;
+    private final boolean pooled;
 
     public HotelFacade() {
+        this(0);
+    }
+
+    // Opt-in pooling: with poolSize > 0 every factory is wrapped in a
+    // PooledComponentFactory and simulateDay gives the day's components back.
+    // Only worth it where escape analysis cannot remove those allocations, and
+    // only for a facade that lives as long as the thread using it, since each
+    // pooled factory keeps its own per-thread free lists.
+    public HotelFacade(int poolSize) {
         this.hotelDirector = HotelDirector.getInstance();
-        this.visitorFactory = new VisitorFactory();
-        this.roomFactory = new RoomFactory();
-        this.barFactory = new BarFactory();
-        this.receptionWorkerFactory = new ReceptionWorkerFactory();
-        this.restaurantWorkerFactory = new RestaurantWorkerFactory();
+        this.pooled = poolSize > 0;
+        this.visitorFactory = pooled(new VisitorFactory(), poolSize);
+        this.roomFactory = pooled(new RoomFactory(), poolSize);
+        this.barFactory = pooled(new BarFactory(), poolSize);
+        this.receptionWorkerFactory = pooled(new ReceptionWorkerFactory(), poolSize);
+        this.restaurantWorkerFactory = pooled(new RestaurantWorkerFactory(), poolSize);
     }
 
     public void openHotel() {
         hotelDirector.interact();
     }
 
+    private static HotelComponentFactory pooled(HotelComponentFactory factory, int poolSize) {
+        return poolSize > 0 ? new PooledComponentFactory(factory, poolSize) : factory;
+    }
+
+    private static void release(HotelComponentFactory factory, HotelComponent component) {
+        ((PooledComponentFactory) factory).release(component);
+    }
+
     public void simulateDay() {
         HotelComponent visitor = visitorFactory.createComponent();
         visitor.interact();
@@ -293,24 +472,335 @@ class HotelFacade {
 
         HotelComponent clonedRestaurantWorker = restaurantWorker.cloneComponent();
         clonedRestaurantWorker.interact();
+
+        // A pooled facade hands the components made today back to their
+        // factories for tomorrow; the short-lived copies are left to the GC
+        if (pooled) {
+            release(visitorFactory, visitor);
+            release(receptionWorkerFactory, receptionWorker);
+            release(roomFactory, room);
+            release(barFactory, bar);
+            release(restaurantWorkerFactory, restaurantWorker);
+        }
+    }
+}
+
+// EventSink interface: destination for simulation events. An event is a
+// template with "{}" placeholders plus up to three arguments, and is only
+// formatted when a sink actually writes it.
+interface EventSink {
+    void write(String template, Object a, Object b, Object c);
+
+    default boolean isEnabled() {
+        return true;
+    }
+}
+
+// ConsoleSink class: prints every event on standard output
+class ConsoleSink implements EventSink {
+    @Override
+    public void write(String template, Object a, Object b, Object c) {
+        System.out.println(EventLog.format(template, a, b, c));
+    }
+}
+
+// DiscardSink class: drops every event
+class DiscardSink implements EventSink {
+    @Override
+    public void write(String template, Object a, Object b, Object c) {
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return false;
+    }
+}
+
+// MemorySink class: keeps events unformatted, for ParallelDays to put back in day order
+class MemorySink implements EventSink {
+    private final List<Object[]> events = new ArrayList<>();
+
+    @Override
+    public synchronized void write(String template, Object a, Object b, Object c) {
+        events.add(new Object[] {template, a, b, c});
+    }
+
+    // Writes the recorded events, in order, to another sink
+    public synchronized void replay(EventSink target) {
+        for (Object[] e : events) {
+            target.write((String) e[0], e[1], e[2], e[3]);
+        }
+    }
+
+    public synchronized List<String> lines() {
+        List<String> lines = new ArrayList<>(events.size());
+        for (Object[] e : events) {
+            lines.add(EventLog.format((String) e[0], e[1], e[2], e[3]));
+        }
+        return lines;
+    }
+}
+
+// EventLog class: every component reports through the current sink
+class EventLog {
+    private static volatile EventSink sink = new ConsoleSink();
+
+    public static EventSink getSink() {
+        return sink;
+    }
+
+    public static void setSink(EventSink newSink) {
+        sink = newSink;
+    }
+
+    // "console" or "discard"
+    public static EventSink fromSpec(String spec) {
+        return spec.equals("discard") ? new DiscardSink() : new ConsoleSink();
+    }
+
+    public static void log(String message) {
+        sink.write(message, null, null, null);
+    }
+
+    public static void log(String template, Object a) {
+        sink.write(template, a, null, null);
+    }
+
+    public static void log(String template, Object a, Object b) {
+        sink.write(template, a, b, null);
+    }
+
+    public static void log(String template, Object a, Object b, Object c) {
+        sink.write(template, a, b, c);
+    }
+
+    public static String format(String template, Object a, Object b, Object c) {
+        if (template.indexOf('{') < 0) {
+            return template;
+        }
+        StringBuilder sb = new StringBuilder(template.length() + 32);
+        int arg = 0;
+        int from = 0;
+        int at;
+        while ((at = template.indexOf("{}", from)) >= 0 && arg < 3) {
+            sb.append(template, from, at);
+            sb.append(arg == 0 ? a : arg == 1 ? b : c);
+            arg++;
+            from = at + 2;
+        }
+        sb.append(template, from, template.length());
+        return sb.toString();
+    }
+}
+
+// RandomSource class: seeded random streams, one per thread
+class RandomSource {
+    private static volatile long rootSeed = System.nanoTime();
+    private static final AtomicLong nextStream = new AtomicLong();
+    private static final ThreadLocal<SplittableRandom> current =
+            ThreadLocal.withInitial(() -> stream(nextStream.getAndIncrement()));
+
+    public static void setSeed(long seed) {
+        rootSeed = seed;
+        nextStream.set(0);
+    }
+
+    // Independent stream number 'id' of the current root seed
+    public static SplittableRandom stream(long id) {
+        return new SplittableRandom(mix64(rootSeed + mix64(id)));
+    }
+
+    public static void bind(SplittableRandom random) {
+        current.set(random);
+    }
+
+    public static SplittableRandom current() {
+        return current.get();
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
+
+// ParallelDays class: simulates many days on a fork-join pool. The days are
+// cut into chunks of CHUNK_DAYS and every chunk runs on its own HotelFacade.
+// Each day draws from its own random stream, so what happens on a day does
+// not depend on the thread that runs it. With more than one thread each
+// chunk records its events in a MemorySink, and the chunks are written to
+// the real sink strictly in day order, so the output is the same as a serial
+// run for any number of threads. Only a few chunks per thread are in flight
+// at a time, which bounds the memory held by buffered events.
+// Run with: java ParallelDays [days] [max threads]
+class ParallelDays {
+    static final int CHUNK_DAYS = 256;
+    // day streams start far above the per-thread streams of RandomSource
+    static final long DAY_STREAMS = 1L << 32;
+    static final int CHUNKS_PER_THREAD = 4;
+
+    // sends each thread's events to the sink bound for that thread; threads
+    // with no bound sink (the payment gateway, say) write to the real sink
+    private static final class RoutingSink implements EventSink {
+        private final ThreadLocal<EventSink> target = new ThreadLocal<>();
+        private final EventSink fallback;
+
+        RoutingSink(EventSink fallback) {
+            this.fallback = fallback;
+        }
+
+        void bind(EventSink sink) {
+            target.set(sink);
+        }
+
+        @Override
+        public void write(String template, Object a, Object b, Object c) {
+            EventSink sink = target.get();
+            if (sink != null) {
+                sink.write(template, a, b, c);
+                return;
+            }
+            synchronized (fallback) {
+                fallback.write(template, a, b, c);
+            }
+        }
+    }
+
+    private final Supplier<HotelFacade> facades;
+    private final int parallelism;
+
+    public ParallelDays(Supplier<HotelFacade> facades, int parallelism) {
+        this.facades = facades;
+        this.parallelism = parallelism;
+    }
+
+    // Simulates days [0, days) on the calling thread, logging straight to the current sink
+    public void runSerial(long days) {
+        HotelFacade hotelFacade = facades.get();
+        for (long day = 0; day < days; day++) {
+            simulate(hotelFacade, day);
+        }
+    }
+
+    // Simulates days [0, days); same output as runSerial
+    public void run(long days) throws InterruptedException {
+        if (parallelism <= 1) {
+            runSerial(days);
+            return;
+        }
+        EventSink out = EventLog.getSink();
+        // nothing to put in order when the events are dropped anyway
+        RoutingSink routing = out.isEnabled() ? new RoutingSink(out) : null;
+        if (routing != null) {
+            EventLog.setSink(routing);
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            ArrayDeque<Future<MemorySink>> inFlight = new ArrayDeque<>();
+            long next = 0;
+            while (next < days || !inFlight.isEmpty()) {
+                while (next < days && inFlight.size() < parallelism * CHUNKS_PER_THREAD) {
+                    long from = next;
+                    long to = Math.min(days, from + CHUNK_DAYS);
+                    inFlight.add(pool.submit(() -> runChunk(from, to, routing)));
+                    next = to;
+                }
+                MemorySink events = inFlight.poll().get();
+                if (events != null) {
+                    synchronized (out) {
+                        events.replay(out);
+                    }
+                }
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A simulated day failed", e.getCause());
+        } finally {
+            pool.shutdown();
+            EventLog.setSink(out);
+        }
+    }
+
+    private MemorySink runChunk(long from, long to, RoutingSink routing) {
+        MemorySink events = routing == null ? null : new MemorySink();
+        if (routing != null) {
+            routing.bind(events);
+        }
+        try {
+            HotelFacade hotelFacade = facades.get();
+            for (long day = from; day < to; day++) {
+                simulate(hotelFacade, day);
+            }
+        } finally {
+            if (routing != null) {
+                routing.bind(null);
+            }
+        }
+        return events;
+    }
+
+    private static void simulate(HotelFacade hotelFacade, long day) {
+        RandomSource.bind(RandomSource.stream(DAY_STREAMS + day));
+        EventLog.log("Day {}", day + 1);
+        hotelFacade.simulateDay();
+        EventLog.log("");
+    }
+
+    // Checks that a parallel run logs the same lines as a serial one, then
+    // reports days per second for 1, 2, 4, ... threads with output discarded
+    public static void main(String[] args) throws InterruptedException {
+        long days = args.length > 0 ? Long.parseLong(args[0]) : 2_000_000;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        Supplier<HotelFacade> facades = HotelFacade::new;
+
+        RandomSource.setSeed(42);
+        MemorySink serial = new MemorySink();
+        EventLog.setSink(serial);
+        new ParallelDays(facades, 1).run(10_000);
+        MemorySink parallel = new MemorySink();
+        EventLog.setSink(parallel);
+        new ParallelDays(facades, Math.max(2, maxThreads)).run(10_000);
+        System.out.println("Parallel output matches serial: " + serial.lines().equals(parallel.lines()));
+
+        EventLog.setSink(new DiscardSink());
+        System.out.println("Cores: " + Runtime.getRuntime().availableProcessors());
+        double base = 0;
+        for (int threads = 1; ; threads = Math.min(threads * 2, maxThreads)) {
+            ParallelDays runner = new ParallelDays(facades, threads);
+            runner.run(days / 10); // warm-up
+            long start = System.nanoTime();
+            runner.run(days);
+            double daysPerSecond = days * 1e9 / (System.nanoTime() - start);
+            if (threads == 1) {
+                base = daysPerSecond;
+            }
+            System.out.printf("%3d threads: %,14.0f days/s, %5.2fx%n", threads, daysPerSecond, daysPerSecond / base);
+            if (threads >= maxThreads) {
+                break;
+            }
+        }
     }
 }
 
 // Modified HotelSimulation class
 public class HotelSimulation {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws InterruptedException {
+        if (args.length > 0) {
+            RandomSource.setSeed(Long.parseLong(args[0]));
+        }
+        // -Dhotel.log=console|discard
+        EventLog.setSink(EventLog.fromSpec(System.getProperty("hotel.log", "console")));
+
         HotelFacade hotelFacade = new HotelFacade();
 
         // Open the hotel
         hotelFacade.openHotel();
 
-        for (int i = 0; i < 5; i++) {
-            System.out.println("Day " + (i + 1));
+        // Simulate the days using the Facade, one per chunk of days;
+        // -Dhotel.days=<n> days to simulate, -Dhotel.threads=<n> threads to run them on
+        long days = Long.getLong("hotel.days", 5);
+        int threads = Integer.getInteger("hotel.threads", 1);
+        new ParallelDays(HotelFacade::new, threads).run(days);
 
-            // Simulate a day using the Facade
-            hotelFacade.simulateDay();
-
-            System.out.println(); // Add a line break for better readability
-        }
     }
 }
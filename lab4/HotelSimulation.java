@@ -1,37 +1,66 @@
+import java.io.Closeable;
+import java.io.IOException;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Random;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
 
 // HotelComponent interface
 interface HotelComponent extends Cloneable {
     void interact();
     HotelComponent cloneComponent();
+
+    // Puts this instance back into the state of 'prototype', an instance of
+    // the same class; used by PooledComponentFactory to reuse released components
+    default void reset(HotelComponent prototype) {
+    }
 }
 
 // Worker abstract class
 abstract class Worker implements HotelComponent {
     @Override
     public void interact() {
-        System.out.println("Worker is performing general duties.");
+        EventLog.log("Worker is performing general duties.");
     }
 
+    // Each kind of worker copies itself with 'new' instead of Object.clone
     @Override
-    public HotelComponent cloneComponent() {
-        try {
-            return (Worker) super.clone();
-        } catch (CloneNotSupportedException e) {
-            e.printStackTrace();
-            return null;
-        }
-    }
+    public abstract HotelComponent cloneComponent();
 }
 
 // ReceptionWorker concrete class
 class ReceptionWorker extends Worker {
     @Override
     public void interact() {
-        System.out.println("Reception worker is assisting a visitor.");
-        System.out.println("Visitor gets a room.");
+        EventLog.log("Reception worker is assisting a visitor.");
+        EventLog.log("Visitor gets a room.");
+    }
+
+    @Override
+    public HotelComponent cloneComponent() {
+        return new ReceptionWorker();
     }
 }
 
@@ -41,15 +70,14 @@ class RestaurantWorker extends Worker {
 
     @Override
     public void interact() {
-        System.out.println("Restaurant worker is taking an order from a visitor.");
+        EventLog.log("Restaurant worker is taking an order from a visitor.");
         serveFood();
     }
 
     private void serveFood() {
-        Random random = new Random();
-        int index = random.nextInt(foodMenu.size());
+        int index = RandomSource.current().nextInt(foodMenu.size());
         String foodItem = foodMenu.get(index);
-        System.out.println("Visitor is having " + foodItem + " in the restaurant.");
+        EventLog.log("Visitor is having {} in the restaurant.", foodItem);
     }
 
     private static List<String> createFoodMenu() {
@@ -83,11 +111,11 @@ class Visitor implements HotelComponent {
 
     @Override
     public void interact() {
-        System.out.println("Visitor is interacting.");
+        EventLog.log("Visitor is interacting.");
         if (paymentStrategy != null) {
             paymentStrategy.pay(100.0); // You can adjust the amount as needed
         } else {
-            System.out.println("No payment strategy set for the visitor.");
+            EventLog.log("No payment strategy set for the visitor.");
         }
     }
 
@@ -97,13 +125,18 @@ class Visitor implements HotelComponent {
         clonedVisitor.setPaymentStrategy(this.paymentStrategy); // Copy the payment strategy to the cloned visitor
         return clonedVisitor;
     }
+
+    @Override
+    public void reset(HotelComponent prototype) {
+        this.paymentStrategy = ((Visitor) prototype).paymentStrategy;
+    }
 }
 
 // Room concrete class
 class Room implements HotelComponent {
     @Override
     public void interact() {
-        System.out.println("Room is being used.");
+        EventLog.log("Room is being used.");
     }
 
     @Override
@@ -116,7 +149,7 @@ class Room implements HotelComponent {
 class Bar implements HotelComponent {
     @Override
     public void interact() {
-        System.out.println("Bar is serving drinks.");
+        EventLog.log("Bar is serving drinks.");
     }
 
     @Override
@@ -129,7 +162,7 @@ class Bar implements HotelComponent {
 class RawFood implements HotelComponent {
     @Override
     public void interact() {
-        System.out.println("Raw food has arrived at the hotel.");
+        EventLog.log("Raw food has arrived at the hotel.");
     }
 
     @Override
@@ -142,7 +175,7 @@ class RawFood implements HotelComponent {
 class RawDrinks implements HotelComponent {
     @Override
     public void interact() {
-        System.out.println("Raw drinks have arrived at the hotel.");
+        EventLog.log("Raw drinks have arrived at the hotel.");
     }
 
     @Override
@@ -155,7 +188,7 @@ class RawDrinks implements HotelComponent {
 class Cleanser implements HotelComponent {
     @Override
     public void interact() {
-        System.out.println("Cleanser has arrived at the hotel.");
+        EventLog.log("Cleanser has arrived at the hotel.");
     }
 
     @Override
@@ -228,55 +261,486 @@ class BarFactory implements HotelComponentFactory {
 // PaymentStrategy interface
 interface PaymentStrategy {
     void pay(double amount);
+
+    // Pays every amount, in order. The default makes one pay call per amount;
+    // strategies backed by a gateway send the whole array in one round trip.
+    default void payAll(double[] amounts) {
+        for (double amount : amounts) {
+            pay(amount);
+        }
+    }
+
+    // Starts a payment and returns without waiting for it, so several can be
+    // in flight at once. The default pays synchronously.
+    default CompletableFuture<Void> payAsync(double amount) {
+        try {
+            pay(amount);
+            return CompletableFuture.completedFuture(null);
+        } catch (RuntimeException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+    }
 }
 
-// ConcreteStrategy implementations
-class CreditCardPayment implements PaymentStrategy {
-    private String cardNumber;
+// GatewayPayment class: what every account-based strategy shares. Without a
+// gateway a payment is only logged; with one every payment is also charged
+// through it. Subclasses only say how a payment is logged.
+abstract class GatewayPayment implements PaymentStrategy {
+    protected final String account;
+    private final PaymentGateway gateway;
 
-    public CreditCardPayment(String cardNumber) {
-        this.cardNumber = cardNumber;
+    protected GatewayPayment(String account, PaymentGateway gateway) {
+        this.account = account;
+        this.gateway = gateway;
     }
 
     @Override
     public void pay(double amount) {
-        System.out.println("Paid $" + amount + " using credit card " + cardNumber);
+        if (gateway != null) {
+            gateway.charge(account, amount);
+        }
+        paid(amount);
     }
+
+    @Override
+    public void payAll(double[] amounts) {
+        if (gateway == null) {
+            PaymentStrategy.super.payAll(amounts);
+            return;
+        }
+        gateway.chargeAll(account, amounts);
+        for (double amount : amounts) {
+            paid(amount);
+        }
+    }
+
+    // The payment is logged on the gateway's thread once it is charged
+    @Override
+    public CompletableFuture<Void> payAsync(double amount) {
+        if (gateway == null) {
+            return PaymentStrategy.super.payAsync(amount);
+        }
+        return gateway.chargeAsync(account, amount).thenRun(() -> paid(amount));
+    }
+
+    protected abstract void paid(double amount);
 }
 
-class PayPalPayment implements PaymentStrategy {
-    private String email;
+// ConcreteStrategy implementations
+class CreditCardPayment extends GatewayPayment {
+    public CreditCardPayment(String cardNumber) {
+        this(cardNumber, null);
+    }
 
+    public CreditCardPayment(String cardNumber, PaymentGateway gateway) {
+        super(cardNumber, gateway);
+    }
+
+    @Override
+    protected void paid(double amount) {
+        EventLog.log("Paid ${} using credit card {}", amount, account);
+    }
+}
+
+class PayPalPayment extends GatewayPayment {
     public PayPalPayment(String email) {
-        this.email = email;
+        this(email, null);
+    }
+
+    public PayPalPayment(String email, PaymentGateway gateway) {
+        super(email, gateway);
+    }
+
+    @Override
+    protected void paid(double amount) {
+        EventLog.log("Paid ${} using PayPal with email {}", amount, account);
+    }
+}
+
+// PaymentGateway class: local stand-in for a remote payment gateway. Every
+// call costs one round trip of 'latency', whether it carries one payment or
+// a whole batch. Asynchronous charges are pipelined: up to maxInFlight of
+// them wait out their round trips at the same time, and a caller that goes
+// over that limit blocks until one completes. Closing the gateway fails the
+// charges still in flight, and any charge started afterwards.
+class PaymentGateway implements Closeable {
+    private final long latencyNanos;
+    private final Semaphore inFlight;
+    private final ScheduledThreadPoolExecutor network;
+    // asynchronous charges whose round trip has not finished yet
+    private final Set<CompletableFuture<Void>> pending = ConcurrentHashMap.newKeySet();
+
+    private final AtomicLong roundTrips = new AtomicLong();
+    private final AtomicLong payments = new AtomicLong();
+    private final AtomicLong cents = new AtomicLong();
+
+    public PaymentGateway(long latencyMicros, int maxInFlight) {
+        this.latencyNanos = latencyMicros * 1000;
+        this.inFlight = new Semaphore(maxInFlight);
+        this.network = new ScheduledThreadPoolExecutor(1, r -> {
+            Thread t = new Thread(r, "payment-gateway");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public void charge(String account, double amount) {
+        long c = toCents(amount);
+        roundTrip();
+        settle(1, c);
+    }
+
+    // All amounts in one request; none is charged if any is invalid
+    public void chargeAll(String account, double[] amounts) {
+        long total = 0;
+        for (double amount : amounts) {
+            total += toCents(amount);
+        }
+        roundTrip();
+        settle(amounts.length, total);
+    }
+
+    public CompletableFuture<Void> chargeAsync(String account, double amount) {
+        long c;
+        try {
+            c = toCents(amount);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (network.isShutdown()) {
+            return CompletableFuture.failedFuture(closed());
+        }
+        inFlight.acquireUninterruptibly();
+        CompletableFuture<Void> charged = new CompletableFuture<>();
+        pending.add(charged);
+        try {
+            network.schedule(() -> {
+                // whoever takes the charge out of pending, this or close(), finishes it
+                if (pending.remove(charged)) {
+                    settle(1, c);
+                    inFlight.release();
+                    charged.complete(null);
+                }
+            }, latencyNanos, TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            // closed since the check above
+            if (pending.remove(charged)) {
+                inFlight.release();
+                charged.completeExceptionally(closed());
+            }
+            return charged;
+        }
+        roundTrips.incrementAndGet();
+        return charged;
+    }
+
+    private static IllegalStateException closed() {
+        return new IllegalStateException("The payment gateway is closed");
+    }
+
+    private static long toCents(double amount) {
+        if (!(amount > 0)) {
+            throw new IllegalArgumentException("Payment amount must be positive: " + amount);
+        }
+        return Math.round(amount * 100);
+    }
+
+    private void roundTrip() {
+        roundTrips.incrementAndGet();
+        long end = System.nanoTime() + latencyNanos;
+        for (long left = latencyNanos; left > 0; left = end - System.nanoTime()) {
+            LockSupport.parkNanos(left);
+        }
+    }
+
+    private void settle(long count, long total) {
+        payments.addAndGet(count);
+        cents.addAndGet(total);
+    }
+
+    public long getRoundTrips() {
+        return roundTrips.get();
+    }
+
+    public long getPayments() {
+        return payments.get();
+    }
+
+    public long getCents() {
+        return cents.get();
+    }
+
+    // Stops the gateway; asynchronous charges still waiting fail without being charged
+    @Override
+    public void close() {
+        network.shutdownNow();
+        for (CompletableFuture<Void> charged : pending) {
+            if (pending.remove(charged)) {
+                inFlight.release();
+                charged.completeExceptionally(closed());
+            }
+        }
+    }
+}
+
+// LedgerPayment class: decorator that records every payment of the wrapped
+// strategy in a PaymentLedger. Lab4 visitors carry no id, so the id recorded
+// is the one given to the decorator.
+class LedgerPayment implements PaymentStrategy {
+    // Placeholder id for the one unnamed guest of the lab4 simulation
+    static final long GUEST = 1;
+
+    private final PaymentStrategy delegate;
+    private final PaymentLedger ledger;
+    private final int strategy;
+    private final long visitorId;
+
+    public LedgerPayment(PaymentStrategy delegate, PaymentLedger ledger, long visitorId) {
+        this.delegate = delegate;
+        this.ledger = ledger;
+        this.visitorId = visitorId;
+        this.strategy = delegate instanceof CreditCardPayment ? PaymentLedger.CREDIT_CARD
+                : delegate instanceof PayPalPayment ? PaymentLedger.PAYPAL : PaymentLedger.CASH;
     }
 
     @Override
     public void pay(double amount) {
-        System.out.println("Paid $" + amount + " using PayPal with email " + email);
+        delegate.pay(amount);
+        ledger.append(visitorId, amount, strategy);
+    }
+
+    @Override
+    public void payAll(double[] amounts) {
+        delegate.payAll(amounts);
+        for (double amount : amounts) {
+            ledger.append(visitorId, amount, strategy);
+        }
+    }
+
+    // Recorded once the wrapped strategy has completed the payment
+    @Override
+    public CompletableFuture<Void> payAsync(double amount) {
+        return delegate.payAsync(amount).thenRun(() -> ledger.append(visitorId, amount, strategy));
     }
 }
 
+// PaymentLedger class: append-only ledger of payments in a memory-mapped file. Every payment is a
+// fixed 32-byte record:
+//
+//   visitor id (8) | amount in cents (8) | timestamp, epoch micros (8) | strategy (4) | 0 (4)
+//
+// Writers reserve a slot with one atomic increment and fill it in place, so
+// appends from many threads do not block each other. A background flusher
+// does group commit: it advances over the slots that are completely written,
+// forces them to disk in one call and publishes the durable count in the
+// file header. The file is mapped in 64 MB segments as it grows.
+class PaymentLedger implements Closeable {
+
+    public static final int CASH = 0;
+    public static final int CREDIT_CARD = 1;
+    public static final int PAYPAL = 2;
+    static final String[] STRATEGIES = {"cash", "credit card", "PayPal"};
+
+    static final int RECORD_SIZE = 32;
+    static final int HEADER_SIZE = 64;
+    static final long MAGIC = 0x4c45444745523031L; // "LEDGER01"
+    static final int SEGMENT_SIZE = 64 << 20;
+    static final int RECORDS_PER_SEGMENT = SEGMENT_SIZE / RECORD_SIZE;
+    static final int MAX_SEGMENTS = 4096;
+
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final AtomicReferenceArray<MappedByteBuffer> segments = new AtomicReferenceArray<>(MAX_SEGMENTS);
+    private final AtomicLong next;
+    private volatile long durable;
+    private volatile boolean closed = false;
+    private final Thread flusher;
+    private final long flushIntervalNanos;
+
+    private final long epochMicrosAtStart = System.currentTimeMillis() * 1000;
+    private final long nanosAtStart = System.nanoTime();
+
+    // Opens (or creates) the ledger; new records are appended after the durable ones.
+    public PaymentLedger(Path file, long flushIntervalMicros) throws IOException {
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_SIZE);
+        header.order(ByteOrder.LITTLE_ENDIAN);
+        if (header.getLong(0) != MAGIC) {
+            header.putLong(0, MAGIC);
+            header.putLong(8, 0);
+        }
+        durable = header.getLong(8);
+        // drop slots a previous run reserved but never committed, so their
+        // timestamps cannot be mistaken for completed records
+        channel.truncate(HEADER_SIZE + durable * RECORD_SIZE);
+        next = new AtomicLong(durable);
+        flushIntervalNanos = flushIntervalMicros * 1000;
+
+        flusher = new Thread(this::flushLoop, "ledger-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    private MappedByteBuffer segment(int s) {
+        MappedByteBuffer buf = segments.get(s);
+        if (buf == null) {
+            synchronized (segments) {
+                buf = segments.get(s);
+                if (buf == null) {
+                    try {
+                        buf = channel.map(FileChannel.MapMode.READ_WRITE, HEADER_SIZE + (long) s * SEGMENT_SIZE, SEGMENT_SIZE);
+                    } catch (IOException e) {
+                        throw new IllegalStateException("Cannot grow the payment ledger", e);
+                    }
+                    buf.order(ByteOrder.LITTLE_ENDIAN);
+                    segments.set(s, buf);
+                }
+            }
+        }
+        return buf;
+    }
+
+    // Appends a payment and returns its record number. The record becomes
+    // durable with the next group commit; see awaitDurable().
+    public long append(long visitorId, double amount, int strategy) {
+        long index = next.getAndIncrement();
+        MappedByteBuffer buf = segment((int) (index / RECORDS_PER_SEGMENT));
+        int at = (int) (index % RECORDS_PER_SEGMENT) * RECORD_SIZE;
+        buf.putLong(at, visitorId);
+        buf.putLong(at + 8, Math.round(amount * 100));
+        buf.putInt(at + 24, strategy);
+        // the timestamp is written last and marks the record as complete
+        VarHandle.releaseFence();
+        buf.putLong(at + 16, epochMicrosAtStart + (System.nanoTime() - nanosAtStart) / 1000);
+        return index;
+    }
+
+    public long size() {
+        return next.get();
+    }
+
+    public long durableCount() {
+        return durable;
+    }
+
+    // Blocks until record 'index' has been forced to disk.
+    public void awaitDurable(long index) {
+        while (durable <= index && !closed) {
+            LockSupport.parkNanos(flushIntervalNanos / 4 + 1);
+        }
+    }
+
+    private void flushLoop() {
+        while (!closed) {
+            LockSupport.parkNanos(flushIntervalNanos);
+            commit();
+        }
+    }
+
+    // One group commit: everything completely written so far is forced to disk.
+    private synchronized void commit() {
+        long from = durable;
+        long to = from;
+        long end = next.get();
+        while (to < end) {
+            MappedByteBuffer buf = segments.get((int) (to / RECORDS_PER_SEGMENT));
+            if (buf == null || buf.getLong((int) (to % RECORDS_PER_SEGMENT) * RECORD_SIZE + 16) == 0) {
+                break;
+            }
+            to++;
+        }
+        if (to == from) {
+            return;
+        }
+        VarHandle.acquireFence();
+        // force only the records written since the last commit, not whole segments
+        for (int s = (int) (from / RECORDS_PER_SEGMENT); s <= (int) ((to - 1) / RECORDS_PER_SEGMENT); s++) {
+            long base = (long) s * RECORDS_PER_SEGMENT;
+            int first = (int) (Math.max(from, base) - base);
+            int last = (int) (Math.min(to, base + RECORDS_PER_SEGMENT) - base);
+            segments.get(s).force(first * RECORD_SIZE, (last - first) * RECORD_SIZE);
+        }
+        header.putLong(8, to);
+        header.force();
+        durable = to;
+    }
+
+    @Override
+    public void close() throws IOException {
+        // let writers that already reserved a slot finish before the last commit
+        long end = next.get();
+        long deadline = System.nanoTime() + 1_000_000_000L;
+        while (durable < end && System.nanoTime() < deadline) {
+            commit();
+        }
+        closed = true;
+        flusher.interrupt();
+        channel.close();
+    }
+
+    // Reads the durable records of a ledger file front to back and totals them per strategy.
+    public static long[] totalsInCents(Path file) throws IOException {
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            MappedByteBuffer head = in.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE);
+            head.order(ByteOrder.LITTLE_ENDIAN);
+            if (head.getLong(0) != MAGIC) {
+                throw new IOException(file + " is not a payment ledger");
+            }
+            long count = head.getLong(8);
+            long[] totals = new long[STRATEGIES.length + 1];
+            for (long done = 0; done < count; ) {
+                int n = (int) Math.min(RECORDS_PER_SEGMENT, count - done);
+                MappedByteBuffer buf = in.map(FileChannel.MapMode.READ_ONLY, HEADER_SIZE + done * RECORD_SIZE,
+                        (long) n * RECORD_SIZE);
+                buf.order(ByteOrder.LITTLE_ENDIAN);
+                for (int i = 0, at = 0; i < n; i++, at += RECORD_SIZE) {
+                    int strategy = buf.getInt(at + 24);
+                    totals[strategy >= 0 && strategy < STRATEGIES.length ? strategy : STRATEGIES.length] += buf.getLong(at + 8);
+                }
+                done += n;
+            }
+            return totals;
+        }
+    }
+}
 
 // HotelDirector class
 class HotelDirector implements HotelComponent {
-    // Singleton implementation
-    private static HotelDirector instance;
+    // Singleton implementation: the holder class is only initialized on the
+    // first call to getInstance, and class initialization guarantees that
+    // every thread sees the same fully built director without any locking
+    private static final class Holder {
+        static final HotelDirector INSTANCE = new HotelDirector(null);
+    }
 
-    private HotelDirector() {
+    // property this director runs, or null for the single hotel
+    private final String property;
+
+    private HotelDirector(String property) {
         // Private constructor to prevent instantiation
+        this.property = property;
     }
 
     public static HotelDirector getInstance() {
-        if (instance == null) {
-            instance = new HotelDirector();
-        }
-        return instance;
+        return Holder.INSTANCE;
+    }
+
+    // Only DirectorRegistry makes directors of properties
+    static HotelDirector forProperty(String property) {
+        return new HotelDirector(property);
+    }
+
+    public String getProperty() {
+        return property;
     }
 
     @Override
     public void interact() {
-        System.out.println("Hotel director announces: \"Hotel is open now!\"");
+        if (property == null) {
+            EventLog.log("Hotel director announces: \"Hotel is open now!\"");
+        } else {
+            EventLog.log("Hotel director of {} announces: \"Hotel is open now!\"", property);
+        }
     }
 
     @Override
@@ -286,28 +750,170 @@ class HotelDirector implements HotelComponent {
     }
 }
 
+// DirectorRegistry class: one HotelDirector per property of a hotel chain.
+// Lookups are plain reads of a ConcurrentHashMap, which take no lock, so any
+// number of threads can look directors up at once. A director is created the
+// first time its property is asked for and is never replaced.
+class DirectorRegistry {
+    private final ConcurrentHashMap<String, HotelDirector> directors;
+
+    public DirectorRegistry() {
+        this(16);
+    }
+
+    // 'properties' is the expected size of the chain
+    public DirectorRegistry(int properties) {
+        directors = new ConcurrentHashMap<>(properties);
+    }
+
+    public HotelDirector director(String property) {
+        // get first: computeIfAbsent may lock the bin even when the key is present
+        HotelDirector director = directors.get(property);
+        if (director == null) {
+            director = directors.computeIfAbsent(property, HotelDirector::forProperty);
+        }
+        return director;
+    }
+
+    public int size() {
+        return directors.size();
+    }
+}
+
 // HotelComponentFactory interface
 interface HotelComponentFactory {
     HotelComponent createComponent();
 }
 
+// PooledComponentFactory class: wraps any HotelComponentFactory and reuses
+// the components given back through release. Each thread keeps its own free
+// list, so create and release normally touch no shared state. A thread whose
+// list is full moves half of it to a shared overflow, and a thread whose list
+// runs empty takes a batch back from there. At most maxSize components wait
+// in the overflow and at most LOCAL_SIZE in each thread's list; anything
+// released beyond that is left to the garbage collector. A reused component
+// is reset to the state of a fresh one from the wrapped factory.
+class PooledComponentFactory implements HotelComponentFactory {
+    static final int LOCAL_SIZE = 32;
+
+    private static final class FreeList {
+        final HotelComponent[] items;
+        int size = 0;
+
+        FreeList(int capacity) {
+            items = new HotelComponent[capacity];
+        }
+    }
+
+    private final HotelComponentFactory factory;
+    private final HotelComponent fresh;
+    private final int maxSize;
+    private final ThreadLocal<FreeList> local;
+    private final HotelComponent[] overflow;
+    private int overflowSize = 0; // guarded by overflow
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public PooledComponentFactory(HotelComponentFactory factory, int maxSize) {
+        this.factory = factory;
+        this.fresh = factory.createComponent();
+        this.maxSize = maxSize;
+        int localSize = Math.min(LOCAL_SIZE, maxSize);
+        this.local = ThreadLocal.withInitial(() -> new FreeList(localSize));
+        this.overflow = new HotelComponent[maxSize];
+    }
+
+    @Override
+    public HotelComponent createComponent() {
+        FreeList list = local.get();
+        if (list.size == 0 && !refill(list)) {
+            created.incrementAndGet();
+            return factory.createComponent();
+        }
+        HotelComponent component = list.items[--list.size];
+        list.items[list.size] = null;
+        component.reset(fresh);
+        return component;
+    }
+
+    // Gives back a component made by this factory; the caller must not use it afterwards
+    public void release(HotelComponent component) {
+        FreeList list = local.get();
+        if (list.size == list.items.length && !spill(list)) {
+            dropped.incrementAndGet();
+            return;
+        }
+        list.items[list.size++] = component;
+    }
+
+    private boolean refill(FreeList list) {
+        synchronized (overflow) {
+            int n = Math.min((list.items.length + 1) / 2, overflowSize);
+            overflowSize -= n;
+            System.arraycopy(overflow, overflowSize, list.items, 0, n);
+            Arrays.fill(overflow, overflowSize, overflowSize + n, null);
+            list.size = n;
+            return n > 0;
+        }
+    }
+
+    private boolean spill(FreeList list) {
+        synchronized (overflow) {
+            int n = Math.min((list.items.length + 1) / 2, maxSize - overflowSize);
+            list.size -= n;
+            System.arraycopy(list.items, list.size, overflow, overflowSize, n);
+            Arrays.fill(list.items, list.size, list.size + n, null);
+            overflowSize += n;
+            return n > 0;
+        }
+    }
+
+    // components the wrapped factory had to make because no released one was free
+    public long getCreated() {
+        return created.get();
+    }
+
+    // released components that did not fit in the pool
+    public long getDropped() {
+        return dropped.get();
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+}
+
 // HotelFacade class with PaymentStrategy
 class HotelFacade {
+    // a reasonable size for the opt-in pooled facade
+    static final int POOL_SIZE = 64;
+
     private HotelDirector hotelDirector;
     private HotelComponentFactory visitorFactory;
     private HotelComponentFactory roomFactory;
     private HotelComponentFactory barFactory;
     private HotelComponentFactory receptionWorkerFactory;
     private HotelComponentFactory restaurantWorkerFactory;
+    private final boolean pooled;
     private PaymentStrategy paymentStrategy;
 
     public HotelFacade(PaymentStrategy paymentStrategy) {
+        this(paymentStrategy, 0);
+    }
+
+    // Opt-in pooling: with poolSize > 0 every factory is wrapped in a
+    // PooledComponentFactory and simulateDay gives the day's components back.
+    // Only worth it where escape analysis cannot remove those allocations, and
+    // only for a facade that lives as long as the thread using it, since each
+    // pooled factory keeps its own per-thread free lists.
+    public HotelFacade(PaymentStrategy paymentStrategy, int poolSize) {
         this.hotelDirector = HotelDirector.getInstance();
-        this.visitorFactory = new VisitorFactory();
-        this.roomFactory = new RoomFactory();
-        this.barFactory = new BarFactory();
-        this.receptionWorkerFactory = new ReceptionWorkerFactory();
-        this.restaurantWorkerFactory = new RestaurantWorkerFactory();
+        this.pooled = poolSize > 0;
+        this.visitorFactory = pooled(new VisitorFactory(), poolSize);
+        this.roomFactory = pooled(new RoomFactory(), poolSize);
+        this.barFactory = pooled(new BarFactory(), poolSize);
+        this.receptionWorkerFactory = pooled(new ReceptionWorkerFactory(), poolSize);
+        this.restaurantWorkerFactory = pooled(new RestaurantWorkerFactory(), poolSize);
         this.paymentStrategy = paymentStrategy;
     }
 
@@ -315,8 +921,15 @@ class HotelFacade {
         hotelDirector.interact();
     }
 
-    public void simulateDay() {
+    private static HotelComponentFactory pooled(HotelComponentFactory factory, int poolSize) {
+        return poolSize > 0 ? new PooledComponentFactory(factory, poolSize) : factory;
+    }
+
+    private static void release(HotelComponentFactory factory, HotelComponent component) {
+        ((PooledComponentFactory) factory).release(component);
+    }
 
+    public void simulateDay() {
         HotelComponent visitor = visitorFactory.createComponent();
 
         // Set the payment strategy for the visitor
@@ -326,7 +939,6 @@ class HotelFacade {
 
         visitor.interact();
 
-
         HotelComponent receptionWorker = receptionWorkerFactory.createComponent();
         receptionWorker.interact();
 
@@ -358,24 +970,353 @@ class HotelFacade {
         // Simulate payment using the chosen strategy
         HotelComponent visitorWithPayment = visitor.cloneComponent();
         visitorWithPayment.interact();
+
+        // A pooled facade hands the components made today back to their
+        // factories for tomorrow; the short-lived copies are left to the GC
+        if (pooled) {
+            release(visitorFactory, visitor);
+            release(receptionWorkerFactory, receptionWorker);
+            release(roomFactory, room);
+            release(barFactory, bar);
+            release(restaurantWorkerFactory, restaurantWorker);
+        }
+    }
+}
+
+// EventSink interface: destination for simulation events. An event is a
+// template with "{}" placeholders plus up to three arguments, and is only
+// formatted when a sink actually writes it.
+interface EventSink {
+    void write(String template, Object a, Object b, Object c);
+
+    default boolean isEnabled() {
+        return true;
+    }
+}
+
+// ConsoleSink class: prints every event on standard output
+class ConsoleSink implements EventSink {
+    @Override
+    public void write(String template, Object a, Object b, Object c) {
+        System.out.println(EventLog.format(template, a, b, c));
+    }
+}
+
+// DiscardSink class: drops every event
+class DiscardSink implements EventSink {
+    @Override
+    public void write(String template, Object a, Object b, Object c) {
+    }
+
+    @Override
+    public boolean isEnabled() {
+        return false;
+    }
+}
+
+// MemorySink class: keeps events unformatted, for ParallelDays to put back in day order
+class MemorySink implements EventSink {
+    private final List<Object[]> events = new ArrayList<>();
+
+    @Override
+    public synchronized void write(String template, Object a, Object b, Object c) {
+        events.add(new Object[] {template, a, b, c});
+    }
+
+    // Writes the recorded events, in order, to another sink
+    public synchronized void replay(EventSink target) {
+        for (Object[] e : events) {
+            target.write((String) e[0], e[1], e[2], e[3]);
+        }
+    }
+
+    public synchronized List<String> lines() {
+        List<String> lines = new ArrayList<>(events.size());
+        for (Object[] e : events) {
+            lines.add(EventLog.format((String) e[0], e[1], e[2], e[3]));
+        }
+        return lines;
+    }
+}
+
+// EventLog class: every component reports through the current sink
+class EventLog {
+    private static volatile EventSink sink = new ConsoleSink();
+
+    public static EventSink getSink() {
+        return sink;
+    }
+
+    public static void setSink(EventSink newSink) {
+        sink = newSink;
+    }
+
+    // "console" or "discard"
+    public static EventSink fromSpec(String spec) {
+        return spec.equals("discard") ? new DiscardSink() : new ConsoleSink();
+    }
+
+    public static void log(String message) {
+        sink.write(message, null, null, null);
+    }
+
+    public static void log(String template, Object a) {
+        sink.write(template, a, null, null);
+    }
+
+    public static void log(String template, Object a, Object b) {
+        sink.write(template, a, b, null);
+    }
+
+    public static void log(String template, Object a, Object b, Object c) {
+        sink.write(template, a, b, c);
+    }
+
+    public static String format(String template, Object a, Object b, Object c) {
+        if (template.indexOf('{') < 0) {
+            return template;
+        }
+        StringBuilder sb = new StringBuilder(template.length() + 32);
+        int arg = 0;
+        int from = 0;
+        int at;
+        while ((at = template.indexOf("{}", from)) >= 0 && arg < 3) {
+            sb.append(template, from, at);
+            sb.append(arg == 0 ? a : arg == 1 ? b : c);
+            arg++;
+            from = at + 2;
+        }
+        sb.append(template, from, template.length());
+        return sb.toString();
+    }
+}
+
+// RandomSource class: seeded random streams, one per thread
+class RandomSource {
+    private static volatile long rootSeed = System.nanoTime();
+    private static final AtomicLong nextStream = new AtomicLong();
+    private static final ThreadLocal<SplittableRandom> current =
+            ThreadLocal.withInitial(() -> stream(nextStream.getAndIncrement()));
+
+    public static void setSeed(long seed) {
+        rootSeed = seed;
+        nextStream.set(0);
+    }
+
+    // Independent stream number 'id' of the current root seed
+    public static SplittableRandom stream(long id) {
+        return new SplittableRandom(mix64(rootSeed + mix64(id)));
+    }
+
+    public static void bind(SplittableRandom random) {
+        current.set(random);
+    }
+
+    public static SplittableRandom current() {
+        return current.get();
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
+
+// ParallelDays class: simulates many days on a fork-join pool. The days are
+// cut into chunks of CHUNK_DAYS and every chunk runs on its own HotelFacade.
+// Each day draws from its own random stream, so what happens on a day does
+// not depend on the thread that runs it. With more than one thread each
+// chunk records its events in a MemorySink, and the chunks are written to
+// the real sink strictly in day order, so the output is the same as a serial
+// run for any number of threads. Only a few chunks per thread are in flight
+// at a time, which bounds the memory held by buffered events.
+// Run with: java ParallelDays [days] [max threads]
+class ParallelDays {
+    static final int CHUNK_DAYS = 256;
+    // day streams start far above the per-thread streams of RandomSource
+    static final long DAY_STREAMS = 1L << 32;
+    static final int CHUNKS_PER_THREAD = 4;
+
+    // sends each thread's events to the sink bound for that thread; threads
+    // with no bound sink (the payment gateway, say) write to the real sink
+    private static final class RoutingSink implements EventSink {
+        private final ThreadLocal<EventSink> target = new ThreadLocal<>();
+        private final EventSink fallback;
+
+        RoutingSink(EventSink fallback) {
+            this.fallback = fallback;
+        }
+
+        void bind(EventSink sink) {
+            target.set(sink);
+        }
+
+        @Override
+        public void write(String template, Object a, Object b, Object c) {
+            EventSink sink = target.get();
+            if (sink != null) {
+                sink.write(template, a, b, c);
+                return;
+            }
+            synchronized (fallback) {
+                fallback.write(template, a, b, c);
+            }
+        }
+    }
+
+    private final Supplier<HotelFacade> facades;
+    private final int parallelism;
+
+    public ParallelDays(Supplier<HotelFacade> facades, int parallelism) {
+        this.facades = facades;
+        this.parallelism = parallelism;
+    }
+
+    // Simulates days [0, days) on the calling thread, logging straight to the current sink
+    public void runSerial(long days) {
+        HotelFacade hotelFacade = facades.get();
+        for (long day = 0; day < days; day++) {
+            simulate(hotelFacade, day);
+        }
+    }
+
+    // Simulates days [0, days); same output as runSerial
+    public void run(long days) throws InterruptedException {
+        if (parallelism <= 1) {
+            runSerial(days);
+            return;
+        }
+        EventSink out = EventLog.getSink();
+        // nothing to put in order when the events are dropped anyway
+        RoutingSink routing = out.isEnabled() ? new RoutingSink(out) : null;
+        if (routing != null) {
+            EventLog.setSink(routing);
+        }
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            ArrayDeque<Future<MemorySink>> inFlight = new ArrayDeque<>();
+            long next = 0;
+            while (next < days || !inFlight.isEmpty()) {
+                while (next < days && inFlight.size() < parallelism * CHUNKS_PER_THREAD) {
+                    long from = next;
+                    long to = Math.min(days, from + CHUNK_DAYS);
+                    inFlight.add(pool.submit(() -> runChunk(from, to, routing)));
+                    next = to;
+                }
+                MemorySink events = inFlight.poll().get();
+                if (events != null) {
+                    synchronized (out) {
+                        events.replay(out);
+                    }
+                }
+            }
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("A simulated day failed", e.getCause());
+        } finally {
+            pool.shutdown();
+            EventLog.setSink(out);
+        }
+    }
+
+    private MemorySink runChunk(long from, long to, RoutingSink routing) {
+        MemorySink events = routing == null ? null : new MemorySink();
+        if (routing != null) {
+            routing.bind(events);
+        }
+        try {
+            HotelFacade hotelFacade = facades.get();
+            for (long day = from; day < to; day++) {
+                simulate(hotelFacade, day);
+            }
+        } finally {
+            if (routing != null) {
+                routing.bind(null);
+            }
+        }
+        return events;
+    }
+
+    private static void simulate(HotelFacade hotelFacade, long day) {
+        RandomSource.bind(RandomSource.stream(DAY_STREAMS + day));
+        EventLog.log("Day {}", day + 1);
+        hotelFacade.simulateDay();
+        EventLog.log("");
+    }
+
+    // Checks that a parallel run logs the same lines as a serial one, then
+    // reports days per second for 1, 2, 4, ... threads with output discarded
+    public static void main(String[] args) throws InterruptedException {
+        long days = args.length > 0 ? Long.parseLong(args[0]) : 2_000_000;
+        int maxThreads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        Supplier<HotelFacade> facades = () -> new HotelFacade(new CreditCardPayment("1234-5678-9876-5432"));
+
+        RandomSource.setSeed(42);
+        MemorySink serial = new MemorySink();
+        EventLog.setSink(serial);
+        new ParallelDays(facades, 1).run(10_000);
+        MemorySink parallel = new MemorySink();
+        EventLog.setSink(parallel);
+        new ParallelDays(facades, Math.max(2, maxThreads)).run(10_000);
+        System.out.println("Parallel output matches serial: " + serial.lines().equals(parallel.lines()));
+
+        EventLog.setSink(new DiscardSink());
+        System.out.println("Cores: " + Runtime.getRuntime().availableProcessors());
+        double base = 0;
+        for (int threads = 1; ; threads = Math.min(threads * 2, maxThreads)) {
+            ParallelDays runner = new ParallelDays(facades, threads);
+            runner.run(days / 10); // warm-up
+            long start = System.nanoTime();
+            runner.run(days);
+            double daysPerSecond = days * 1e9 / (System.nanoTime() - start);
+            if (threads == 1) {
+                base = daysPerSecond;
+            }
+            System.out.printf("%3d threads: %,14.0f days/s, %5.2fx%n", threads, daysPerSecond, daysPerSecond / base);
+            if (threads >= maxThreads) {
+                break;
+            }
+        }
     }
 }
 
 // Modified HotelSimulation class
 public class HotelSimulation {
-    public static void main(String[] args) {
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length > 0) {
+            RandomSource.setSeed(Long.parseLong(args[0]));
+        }
+        // -Dhotel.log=console|discard
+        EventLog.setSink(EventLog.fromSpec(System.getProperty("hotel.log", "console")));
+
         PaymentStrategy paymentStrategy = new CreditCardPayment("1234-5678-9876-5432");
 
+        // -Dhotel.days=<n> days to simulate, -Dhotel.threads=<n> threads to run them on
+        long days = Long.getLong("hotel.days", 5);
+        int threads = Integer.getInteger("hotel.threads", 1);
+
+        // -Dhotel.ledger=<path> also records every payment in a ledger file
+        String ledgerPath = System.getProperty("hotel.ledger");
+        if (ledgerPath != null && threads > 1) {
+            // chunks run at once would append to the one ledger out of day order
+            throw new IllegalArgumentException("-Dhotel.ledger records payments in day order and needs -Dhotel.threads=1");
+        }
+        PaymentLedger ledger = ledgerPath == null ? null : new PaymentLedger(Paths.get(ledgerPath), 1000);
+        if (ledger != null) {
+            paymentStrategy = new LedgerPayment(paymentStrategy, ledger, LedgerPayment.GUEST);
+        }
+
         HotelFacade hotelFacade = new HotelFacade(paymentStrategy);
 
         hotelFacade.openHotel();
 
-        for (int i = 0; i < 5; i++) {
-            System.out.println("Day " + (i + 1));
-
-            hotelFacade.simulateDay();
+        PaymentStrategy chosen = paymentStrategy;
+        new ParallelDays(() -> new HotelFacade(chosen), threads).run(days);
 
-            System.out.println();
+        if (ledger != null) {
+            ledger.close();
+            long[] totals = PaymentLedger.totalsInCents(Paths.get(ledgerPath));
+            EventLog.log("Ledger total paid by credit card: ${}", totals[PaymentLedger.CREDIT_CARD] / 100.0);
         }
     }
 }
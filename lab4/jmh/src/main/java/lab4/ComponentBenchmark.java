@@ -0,0 +1,73 @@
+package lab4;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// createComponent of every HotelComponentFactory and cloneComponent of the
+// component it makes. HotelDirector is left out: it is a singleton and
+// does not clone.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class ComponentBenchmark {
+
+    @Param({"Visitor", "Room", "Bar", "ReceptionWorker", "RestaurantWorker", "RawFood", "RawDrinks", "Cleanser"})
+    String component;
+
+    private HotelComponentFactory factory;
+    private HotelComponent prototype;
+
+    @Setup
+    public void setUp() {
+        EventLog.setSink(new DiscardSink());
+        factory = factory(component);
+        prototype = factory.createComponent();
+    }
+
+    private static HotelComponentFactory factory(String component) {
+        switch (component) {
+            case "Visitor":
+                return new VisitorFactory();
+            case "Room":
+                return new RoomFactory();
+            case "Bar":
+                return new BarFactory();
+            case "ReceptionWorker":
+                return new ReceptionWorkerFactory();
+            case "RestaurantWorker":
+                return new RestaurantWorkerFactory();
+            case "RawFood":
+                return new RawFoodFactory();
+            case "RawDrinks":
+                return new RawDrinksFactory();
+            case "Cleanser":
+                return new CleanserFactory();
+            default:
+                throw new IllegalArgumentException("Unknown component: " + component);
+        }
+    }
+
+    @Benchmark
+    public HotelComponent createComponent() {
+        return factory.createComponent();
+    }
+
+    @Benchmark
+    public HotelComponent cloneComponent() {
+        return prototype.cloneComponent();
+    }
+}
@@ -0,0 +1,84 @@
+package lab4;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// The lab4 day and the singletons it goes through, with component output
+// discarded: a whole HotelFacade day, plain or with pooled factories, the
+// director singleton and the per-property director registry.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class HotelBenchmark {
+
+    @State(Scope.Thread)
+    public static class Day {
+        // factory pool size given to HotelFacade, 0 for the plain factories
+        @Param({"0", "64"})
+        int poolSize;
+
+        HotelFacade hotelFacade;
+
+        @Setup
+        public void setUp() {
+            EventLog.setSink(new DiscardSink());
+            RandomSource.setSeed(42);
+            hotelFacade = new HotelFacade(new CreditCardPayment("1234-5678-9876-5432"), poolSize);
+        }
+    }
+
+    private PooledComponentFactory pooledRooms;
+    private DirectorRegistry directors;
+    private String[] properties;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        EventLog.setSink(new DiscardSink());
+        pooledRooms = new PooledComponentFactory(new RoomFactory(), HotelFacade.POOL_SIZE);
+        directors = new DirectorRegistry(500);
+        properties = new String[500];
+        for (int i = 0; i < properties.length; i++) {
+            properties[i] = "Property " + i;
+            directors.director(properties[i]);
+        }
+    }
+
+    @Benchmark
+    public HotelFacade simulateDay(Day day) {
+        day.hotelFacade.simulateDay();
+        return day.hotelFacade;
+    }
+
+    @Benchmark
+    public HotelComponent pooledCreateAndRelease() {
+        HotelComponent room = pooledRooms.createComponent();
+        pooledRooms.release(room);
+        return room;
+    }
+
+    @Benchmark
+    public HotelDirector directorInstance() {
+        return HotelDirector.getInstance();
+    }
+
+    @Benchmark
+    public HotelDirector registryDirector() {
+        next = next + 1 == properties.length ? 0 : next + 1;
+        return directors.director(properties[next]);
+    }
+}
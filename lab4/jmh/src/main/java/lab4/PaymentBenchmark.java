@@ -0,0 +1,72 @@
+package lab4;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// PaymentStrategy.pay of every strategy, with payment output discarded and
+// no gateway. LedgerPayment pays by credit card and appends to a ledger in a
+// temporary file.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(2)
+@State(Scope.Thread)
+public class PaymentBenchmark {
+
+    @Param({"CreditCardPayment", "PayPalPayment", "LedgerPayment"})
+    String strategy;
+
+    private PaymentStrategy payment;
+    private Path file;
+    private PaymentLedger ledger;
+
+    @Setup
+    public void setUp() throws IOException {
+        EventLog.setSink(new DiscardSink());
+        switch (strategy) {
+            case "CreditCardPayment":
+                payment = new CreditCardPayment("1234-5678-9876-5432");
+                break;
+            case "PayPalPayment":
+                payment = new PayPalPayment("visitor@example.com");
+                break;
+            case "LedgerPayment":
+                file = Files.createTempFile("payments", ".ledger");
+                ledger = new PaymentLedger(file, 1000);
+                payment = new LedgerPayment(new CreditCardPayment("1234-5678-9876-5432"), ledger, LedgerPayment.GUEST);
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown strategy: " + strategy);
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        if (ledger != null) {
+            ledger.close();
+            Files.delete(file);
+        }
+    }
+
+    @Benchmark
+    public PaymentStrategy pay() {
+        payment.pay(100.0);
+        return payment;
+    }
+}
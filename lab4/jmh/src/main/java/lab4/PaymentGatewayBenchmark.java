@@ -0,0 +1,83 @@
+package lab4;
+
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Payments per second through a simulated gateway for the three ways of
+// paying: one pay call at a time, payAll in batches, and payAsync with many
+// payments in flight. Payment output is discarded.
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PaymentGatewayBenchmark {
+    static final int BATCH = 100;
+    static final int IN_FLIGHT = 64;
+
+    @Param({"CreditCardPayment", "PayPalPayment"})
+    String strategy;
+
+    // round trip of the simulated gateway
+    @Param({"200"})
+    long latencyMicros;
+
+    private PaymentGateway gateway;
+    private PaymentStrategy payment;
+    private final double[] amounts = new double[BATCH];
+    private final CompletableFuture<?>[] pending = new CompletableFuture<?>[IN_FLIGHT];
+
+    @Setup
+    public void setUp() {
+        EventLog.setSink(new DiscardSink());
+        Arrays.fill(amounts, 100.0);
+        gateway = new PaymentGateway(latencyMicros, IN_FLIGHT);
+        payment = strategy.equals("PayPalPayment")
+                ? new PayPalPayment("visitor@example.com", gateway)
+                : new CreditCardPayment("1234-5678-9876-5432", gateway);
+    }
+
+    @TearDown
+    public void tearDown() {
+        gateway.close();
+    }
+
+    @Benchmark
+    public PaymentStrategy pay() {
+        payment.pay(100.0);
+        return payment;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public PaymentStrategy payAll() {
+        payment.payAll(amounts);
+        return payment;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(IN_FLIGHT)
+    public PaymentStrategy payAsync() {
+        for (int i = 0; i < pending.length; i++) {
+            pending[i] = payment.payAsync(100.0);
+        }
+        CompletableFuture.allOf(pending).join();
+        return payment;
+    }
+}